@@ -0,0 +1,103 @@
+package com.example.licenseplate.anonymization;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Estratégias de anonimização disponíveis (todos os beans AnonymizationStrategy) e a escolha
+// de qual usar: parâmetro da requisição > anonymization.tenants.<tenantId> > padrão
+@Component
+public class AnonymizationRegistry {
+
+    @Autowired
+    private List<AnonymizationStrategy> strategies;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${anonymization.default-strategy:BLUR_PIXELATE}")
+    private String defaultStrategyName;
+
+    private Map<String, AnonymizationStrategy> byName = Collections.emptyMap();
+    private Map<String, AnonymizationStrategy> tenants = Collections.emptyMap();
+    private AnonymizationStrategy defaultStrategy;
+
+    @PostConstruct
+    public void init() {
+        Map<String, AnonymizationStrategy> names = new LinkedHashMap<>();
+        for (AnonymizationStrategy strategy : strategies) {
+            String name = normalize(strategy.getName());
+            if (names.putIfAbsent(name, strategy) != null) {
+                throw new IllegalStateException("Estratégia de anonimização duplicada: " + name);
+            }
+        }
+        byName = Collections.unmodifiableMap(names);
+
+        // Configuração inválida impede a subida, como nas ROIs por câmera
+        defaultStrategy = require(defaultStrategyName, "anonymization.default-strategy");
+
+        Map<String, String> definitions = Binder.get(environment)
+                .bind("anonymization.tenants", Bindable.mapOf(String.class, String.class))
+                .orElse(Collections.emptyMap());
+        Map<String, AnonymizationStrategy> parsed = new LinkedHashMap<>();
+        definitions.forEach((tenantId, name) -> parsed.put(tenantId, require(name, "anonymization.tenants." + tenantId)));
+        tenants = Collections.unmodifiableMap(parsed);
+
+        System.out.println("[ANONYMIZATION] Estratégias: " + byName.keySet() + ", padrão " + defaultStrategy.getName() +
+                (tenants.isEmpty() ? "" : ", " + tenants.size() + " tenant(s) configurado(s)"));
+    }
+
+    // Nome pedido na requisição tem prioridade; nome desconhecido é erro do cliente (400)
+    public AnonymizationStrategy resolve(String requested, String tenantId) {
+        if (requested != null && !requested.isBlank()) {
+            AnonymizationStrategy strategy = byName.get(normalize(requested));
+            if (strategy == null) {
+                throw new IllegalArgumentException("Anonimização desconhecida: " + requested + " (disponíveis: " + byName.keySet() + ")");
+            }
+            return strategy;
+        }
+        if (tenantId != null) {
+            AnonymizationStrategy strategy = tenants.get(tenantId);
+            if (strategy != null) {
+                return strategy;
+            }
+        }
+        return defaultStrategy;
+    }
+
+    public AnonymizationStrategy getDefault() {
+        return defaultStrategy;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("strategies", byName.keySet());
+        stats.put("default", defaultStrategy.getName());
+        Map<String, String> tenantNames = new LinkedHashMap<>();
+        tenants.forEach((tenantId, strategy) -> tenantNames.put(tenantId, strategy.getName()));
+        stats.put("tenants", tenantNames);
+        return stats;
+    }
+
+    private AnonymizationStrategy require(String name, String property) {
+        AnonymizationStrategy strategy = name != null ? byName.get(normalize(name)) : null;
+        if (strategy == null) {
+            throw new IllegalStateException(property + ": estratégia desconhecida " + name + " (disponíveis: " + byName.keySet() + ")");
+        }
+        return strategy;
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toUpperCase(Locale.ROOT);
+    }
+}
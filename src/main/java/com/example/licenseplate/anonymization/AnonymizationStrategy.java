@@ -0,0 +1,16 @@
+package com.example.licenseplate.anonymization;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+// Forma de esconder a placa na imagem devolvida. Implementações são beans do Spring,
+// registradas pelo nome em AnonymizationRegistry; basta criar um novo @Component para
+// disponibilizar outra estratégia. A imagem é alterada no próprio buffer e apenas dentro
+// da região, então o custo deve ser proporcional à área da placa
+public interface AnonymizationStrategy {
+
+    // Nome usado no parâmetro anonymization e em anonymization.tenants.* (maiúsculas)
+    String getName();
+
+    void anonymize(BufferedImage image, Rectangle region);
+}
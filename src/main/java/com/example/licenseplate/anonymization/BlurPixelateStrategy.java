@@ -0,0 +1,25 @@
+package com.example.licenseplate.anonymization;
+
+import com.example.licenseplate.imaging.RgbRegion;
+import org.springframework.stereotype.Component;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+// Blur seguido de pixelização sobre o mesmo buffer da região (comportamento original da API)
+@Component
+public class BlurPixelateStrategy implements AnonymizationStrategy {
+
+    @Override
+    public String getName() {
+        return "BLUR_PIXELATE";
+    }
+
+    @Override
+    public void anonymize(BufferedImage image, Rectangle region) {
+        RgbRegion pixels = RgbRegion.of(image, region);
+        BoxBlurStrategy.blur(pixels, region);
+        PixelateStrategy.pixelate(pixels, region);
+        pixels.commit();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.licenseplate.anonymization;
+
+import com.example.licenseplate.imaging.BoxKernel;
+import com.example.licenseplate.imaging.RgbOps;
+import com.example.licenseplate.imaging.RgbRegion;
+import org.springframework.stereotype.Component;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+// Blur aproximando uma gaussiana com três box blurs separáveis. O raio acompanha o tamanho
+// da placa, para que os caracteres fiquem ilegíveis tanto em placas próximas quanto distantes
+@Component
+public class BoxBlurStrategy implements AnonymizationStrategy {
+
+    private static final int PASSES = 3;
+
+    @Override
+    public String getName() {
+        return "BOX_BLUR";
+    }
+
+    @Override
+    public void anonymize(BufferedImage image, Rectangle region) {
+        RgbRegion pixels = RgbRegion.of(image, region);
+        blur(pixels, region);
+        pixels.commit();
+    }
+
+    // Gaussiana de sigma = raio / 3, com o raio do blur gaussiano usado anteriormente
+    static void blur(RgbRegion pixels, Rectangle region) {
+        int radius = Math.max(4, Math.min(region.width / 18, region.height / 7));
+        RgbOps.boxBlur(pixels, BoxKernel.forRadius(RgbOps.boxRadiusForSigma(radius / 3.0)), PASSES);
+    }
+}
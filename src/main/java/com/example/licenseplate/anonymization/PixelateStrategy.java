@@ -0,0 +1,31 @@
+package com.example.licenseplate.anonymization;
+
+import com.example.licenseplate.imaging.RgbOps;
+import com.example.licenseplate.imaging.RgbRegion;
+import org.springframework.stereotype.Component;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+// Mosaico de blocos com a cor média; o bloco cresce com a placa (mínimo de 8px)
+@Component
+public class PixelateStrategy implements AnonymizationStrategy {
+
+    private static final int MIN_BLOCK_SIZE = 8;
+
+    @Override
+    public String getName() {
+        return "PIXELATE";
+    }
+
+    @Override
+    public void anonymize(BufferedImage image, Rectangle region) {
+        RgbRegion pixels = RgbRegion.of(image, region);
+        pixelate(pixels, region);
+        pixels.commit();
+    }
+
+    static void pixelate(RgbRegion pixels, Rectangle region) {
+        RgbOps.pixelate(pixels, Math.max(MIN_BLOCK_SIZE, Math.min(region.width / 12, region.height / 5)));
+    }
+}
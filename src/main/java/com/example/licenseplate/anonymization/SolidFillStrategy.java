@@ -0,0 +1,42 @@
+package com.example.licenseplate.anonymization;
+
+import com.example.licenseplate.imaging.RgbOps;
+import com.example.licenseplate.imaging.RgbRegion;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+// Retângulo de cor sólida: praticamente sem custo e irreversível
+@Component
+public class SolidFillStrategy implements AnonymizationStrategy {
+
+    // Cor em hexadecimal (#RRGGBB ou 0xRRGGBB)
+    @Value("${anonymization.solid.color:#000000}")
+    private String colorHex;
+
+    private int color;
+
+    @PostConstruct
+    public void init() {
+        try {
+            color = Integer.decode(colorHex.trim()) & 0xFFFFFF;
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("anonymization.solid.color inválida: " + colorHex, e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "SOLID";
+    }
+
+    @Override
+    public void anonymize(BufferedImage image, Rectangle region) {
+        RgbRegion pixels = RgbRegion.of(image, region);
+        RgbOps.fill(pixels, color);
+        pixels.commit();
+    }
+}
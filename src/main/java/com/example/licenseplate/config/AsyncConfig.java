@@ -1,25 +1,105 @@
 package com.example.licenseplate.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 
 @Configuration
-@EnableAsync
 public class AsyncConfig {
 
-    @Bean(name = "imageProcessingExecutor")
-    public Executor imageProcessingExecutor() {
+    // Compartilhado com o TesseractPool para que cada worker tenha uma instância de OCR
+    @Value("${tesseract.pool.size:${image.processing.max-threads:5}}")
+    private int ocrThreads;
+
+    @Value("${plate.detection.parallelism:0}")
+    private int detectionParallelism;
+
+    // Pipeline em etapas: cada uma com pool e fila próprios. Fila cheia rejeita a tarefa
+    // (HTTP 429 no controller) em vez de executar na thread do Tomcat
+    @Value("${pipeline.decode.threads:2}")
+    private int decodeThreads;
+
+    @Value("${pipeline.decode.queue-capacity:100}")
+    private int decodeQueueCapacity;
+
+    @Value("${pipeline.detect.threads:${image.processing.max-threads:5}}")
+    private int detectThreads;
+
+    @Value("${pipeline.detect.queue-capacity:100}")
+    private int detectQueueCapacity;
+
+    @Value("${pipeline.ocr.threads:${tesseract.pool.size:${image.processing.max-threads:5}}}")
+    private int ocrStageThreads;
+
+    @Value("${pipeline.ocr.queue-capacity:100}")
+    private int ocrQueueCapacity;
+
+    @Value("${pipeline.encode.threads:2}")
+    private int encodeThreads;
+
+    @Value("${pipeline.encode.queue-capacity:100}")
+    private int encodeQueueCapacity;
+
+    @Bean(name = "decodeExecutor")
+    public ThreadPoolTaskExecutor decodeExecutor() {
+        return stageExecutor("Decode-", decodeThreads, decodeQueueCapacity);
+    }
+
+    @Bean(name = "detectExecutor")
+    public ThreadPoolTaskExecutor detectExecutor() {
+        return stageExecutor("Detect-", detectThreads, detectQueueCapacity);
+    }
+
+    @Bean(name = "ocrExecutor")
+    public ThreadPoolTaskExecutor ocrExecutor() {
+        return stageExecutor("Ocr-", ocrStageThreads, ocrQueueCapacity);
+    }
+
+    @Bean(name = "encodeExecutor")
+    public ThreadPoolTaskExecutor encodeExecutor() {
+        return stageExecutor("Encode-", encodeThreads, encodeQueueCapacity);
+    }
+
+    // OCR especulativo: uma thread por instância do TesseractPool. Separado da etapa de OCR
+    // porque as tarefas da etapa esperam por estas; no mesmo pool poderiam se bloquear
+    @Bean(name = "speculativeOcrExecutor")
+    public ThreadPoolTaskExecutor speculativeOcrExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("ImageProcessing-");
+        executor.setCorePoolSize(ocrThreads);
+        executor.setMaxPoolSize(ocrThreads);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("OcrSpeculative-");
         executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    // Pool fork/join para gerar candidatos em paralelo dentro de uma única imagem (0 = número de núcleos)
+    @Bean(name = "detectionForkJoinPool", destroyMethod = "shutdown")
+    public ForkJoinPool detectionForkJoinPool() {
+        int parallelism = detectionParallelism > 0 ? detectionParallelism : Runtime.getRuntime().availableProcessors();
+
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Detection-" + thread.getPoolIndex());
+            return thread;
+        };
+
+        return new ForkJoinPool(parallelism, factory, null, false);
+    }
+
+    private ThreadPoolTaskExecutor stageExecutor(String prefix, int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, threads));
+        executor.setMaxPoolSize(Math.max(1, threads));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(prefix);
+        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
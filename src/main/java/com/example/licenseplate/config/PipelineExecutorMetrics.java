@@ -0,0 +1,74 @@
+package com.example.licenseplate.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+// Publica fila e threads ativas de cada executor do pipeline no Micrometer (/actuator/metrics)
+// e expõe o mesmo retrato em /debug/pipeline
+@Component
+public class PipelineExecutorMetrics {
+
+    // Todos os Executor do contexto, indexados pelo nome do bean. A injeção é pelo tipo
+    // Executor porque beans como o ioExecutor declaram Executor e só decidem a implementação
+    // em tempo de execução; os ThreadPoolTaskExecutor são filtrados em init()
+    @Autowired
+    private Map<String, Executor> allExecutors;
+
+    private final Map<String, ThreadPoolTaskExecutor> executors = new LinkedHashMap<>();
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void registerGauges() {
+        allExecutors.forEach((name, executor) -> {
+            if (executor instanceof ThreadPoolTaskExecutor) {
+                executors.put(name, (ThreadPoolTaskExecutor) executor);
+            }
+        });
+
+        if (meterRegistry == null) {
+            System.out.println("[PIPELINE] MeterRegistry indisponível, métricas dos executores apenas em /debug/pipeline");
+            return;
+        }
+
+        executors.forEach((name, executor) -> {
+            Gauge.builder("image.pipeline.queue.depth", executor, ThreadPoolTaskExecutor::getQueueSize)
+                    .tag("executor", name)
+                    .description("Tarefas aguardando na fila do executor")
+                    .register(meterRegistry);
+            Gauge.builder("image.pipeline.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                    .tag("executor", name)
+                    .description("Threads executando tarefas")
+                    .register(meterRegistry);
+            Gauge.builder("image.pipeline.pool.size", executor, ThreadPoolTaskExecutor::getPoolSize)
+                    .tag("executor", name)
+                    .description("Threads criadas no executor")
+                    .register(meterRegistry);
+        });
+
+        System.out.println("[PIPELINE] Métricas registradas para " + executors.keySet());
+    }
+
+    public Map<String, Object> getSnapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        executors.forEach((name, executor) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("active", executor.getActiveCount());
+            stats.put("poolSize", executor.getPoolSize());
+            stats.put("maxPoolSize", executor.getMaxPoolSize());
+            stats.put("queueDepth", executor.getQueueSize());
+            stats.put("queueCapacity", executor.getQueueCapacity());
+            snapshot.put(name, stats);
+        });
+        return snapshot;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.licenseplate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Modo opcional com virtual threads (Java 21+) para as partes limitadas por I/O. As threads do
+// Tomcat (recebimento de uploads lentos de câmeras em rede celular) ficam com o próprio Spring
+// Boot via spring.threads.virtual.enabled, que só tem efeito em Java 21+. Aqui fica apenas o
+// ioExecutor (gravação em disco e envio de eventos SSE), que o Boot não cobre. Detecção e OCR
+// continuam nos executores limitados do AsyncConfig. A API é acessada por reflexão para que o
+// projeto continue compilando e rodando em Java 17
+@Configuration
+public class VirtualThreadsConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    @Value("${pipeline.io.threads:4}")
+    private int ioThreads;
+
+    @Value("${pipeline.io.queue-capacity:500}")
+    private int ioQueueCapacity;
+
+    // Gravação de imagens e envio de eventos SSE. O ExecutorService de virtual threads é
+    // encerrado pelo Spring no shutdown (destroy method inferido: shutdown)
+    @Bean(name = "ioExecutor")
+    public Executor ioExecutor() {
+        if (virtualThreadsEnabled) {
+            ExecutorService virtualExecutor = newVirtualThreadExecutor();
+            if (virtualExecutor != null) {
+                System.out.println("[VIRTUAL-THREADS] ioExecutor usando virtual threads");
+                return virtualExecutor;
+            }
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(ioThreads);
+        executor.setMaxPoolSize(ioThreads);
+        executor.setQueueCapacity(ioQueueCapacity);
+        executor.setThreadNamePrefix("Io-");
+        // I/O é curto e não pode se perder: com a fila cheia quem submeteu executa
+        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() quando disponível (Java 21+), senão null
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("[VIRTUAL-THREADS] Virtual threads indisponíveis nesta JVM (" +
+                    System.getProperty("java.version") + "), mantendo threads de plataforma");
+            return null;
+        }
+    }
+}
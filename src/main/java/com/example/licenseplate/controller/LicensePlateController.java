@@ -1,17 +1,31 @@
 package com.example.licenseplate.controller;
 
+import com.example.licenseplate.anonymization.AnonymizationRegistry;
+import com.example.licenseplate.config.PipelineExecutorMetrics;
+import com.example.licenseplate.dto.BatchResult;
+import com.example.licenseplate.dto.ProcessingOptions;
 import com.example.licenseplate.dto.ProcessingResult;
+import com.example.licenseplate.imaging.BoxKernel;
+import com.example.licenseplate.service.BatchProcessingService;
 import com.example.licenseplate.service.ImageProcessorService;
+import com.example.licenseplate.service.ResultStreamPublisher;
+import com.example.licenseplate.service.RoiRegistry;
+import com.example.licenseplate.service.TesseractPool;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/license-plate")
@@ -21,6 +35,24 @@ public class LicensePlateController {
     @Autowired
     private ImageProcessorService imageProcessorService;
 
+    @Autowired
+    private TesseractPool tesseractPool;
+
+    @Autowired
+    private BatchProcessingService batchProcessingService;
+
+    @Autowired
+    private ResultStreamPublisher resultStreamPublisher;
+
+    @Autowired
+    private PipelineExecutorMetrics pipelineExecutorMetrics;
+
+    @Autowired
+    private RoiRegistry roiRegistry;
+
+    @Autowired
+    private AnonymizationRegistry anonymizationRegistry;
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> healthCheck() {
         System.out.println("[HEALTH] Health check requisitado");
@@ -35,38 +67,32 @@ public class LicensePlateController {
     }
 
     @PostMapping(value = "/process", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Map<String, String>> processImage(@RequestParam("image") MultipartFile file) {
+    public ResponseEntity<Map<String, String>> processImage(@RequestParam("image") MultipartFile file,
+                                                            @RequestParam(value = "noCache", defaultValue = "false") boolean noCache,
+                                                            @RequestParam(value = "cameraId", required = false) String cameraId,
+                                                            @RequestParam(value = "roi", required = false) String roi,
+                                                            @RequestParam(value = "anonymization", required = false) String anonymization,
+                                                            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantId) {
         String processId = UUID.randomUUID().toString();
         System.out.println("[CONTROLLER] POST /process - ProcessId: " + processId);
         System.out.println("[CONTROLLER] Arquivo: " + file.getOriginalFilename() + " (" + file.getSize() + " bytes)");
 
         try {
             // Validações básicas
-            if (file.isEmpty()) {
-                System.out.println("[CONTROLLER] Erro: Arquivo vazio");
-                return ResponseEntity.badRequest()
-                        .body(createErrorResponse("Arquivo de imagem não fornecido"));
-            }
-
-            String contentType = file.getContentType();
-            System.out.println("[CONTROLLER] Content-Type: " + contentType);
-
-            if (contentType == null || !isValidImageType(contentType)) {
-                System.out.println("[CONTROLLER] Erro: Tipo inválido - " + contentType);
-                return ResponseEntity.badRequest()
-                        .body(createErrorResponse("Tipo de arquivo inválido. Aceitos: JPEG, PNG, BMP"));
-            }
-
-            if (file.getSize() > 10 * 1024 * 1024) {
-                System.out.println("[CONTROLLER] Erro: Arquivo muito grande - " + file.getSize());
-                return ResponseEntity.badRequest()
-                        .body(createErrorResponse("Arquivo muito grande. Tamanho máximo: 10MB"));
+            String validationError = validateUpload(file);
+            if (validationError != null) {
+                return ResponseEntity.badRequest().body(createErrorResponse(validationError));
             }
 
             System.out.println("[CONTROLLER] Iniciando processamento assíncrono...");
 
+            ProcessingOptions options = new ProcessingOptions();
+            options.setBypassCache(noCache);
+            options.setRoi(roiRegistry.resolve(cameraId, roi));
+            options.setAnonymization(anonymizationRegistry.resolve(anonymization, tenantId).getName());
+
             // Iniciar processamento - sem await, é assíncrono
-            imageProcessorService.processImageAsync(processId, file.getBytes())
+            imageProcessorService.processImageAsync(processId, file.getBytes(), options)
                     .thenAccept(result -> {
                         System.out.println("[CONTROLLER] Processamento concluído para " + processId + " - Status: " + result.getStatus());
                     })
@@ -83,6 +109,14 @@ public class LicensePlateController {
             System.out.println("[CONTROLLER] Retornando response imediato para " + processId);
             return ResponseEntity.accepted().body(response);
 
+        } catch (RejectedExecutionException e) {
+            // Fila do pipeline cheia: tratado no GlobalExceptionHandler (429)
+            throw e;
+
+        } catch (IllegalArgumentException e) {
+            System.out.println("[CONTROLLER] Parâmetro inválido: " + e.getMessage());
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+
         } catch (Exception e) {
             System.err.println("[CONTROLLER] Erro no controller: " + e.getMessage());
             e.printStackTrace();
@@ -91,6 +125,172 @@ public class LicensePlateController {
         }
     }
 
+    // Detecção síncrona para clientes de baixa latência (ex.: cancelas): passa pelas mesmas
+    // etapas e filas do /process e devolve o resultado direto, sem processId para consultar
+    // depois. Fila cheia em qualquer etapa responde 429, como no fluxo assíncrono
+    @PostMapping(value = "/process/sync", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ProcessingResult> processImageSync(@RequestParam("image") MultipartFile file,
+                                                             @RequestParam(value = "timeoutMs", required = false) Long timeoutMs,
+                                                             @RequestParam(value = "includeImage", defaultValue = "true") boolean includeImage,
+                                                             @RequestParam(value = "noCache", defaultValue = "false") boolean noCache,
+                                                             @RequestParam(value = "cameraId", required = false) String cameraId,
+                                                             @RequestParam(value = "roi", required = false) String roi,
+                                                             @RequestParam(value = "anonymization", required = false) String anonymization,
+                                                             @RequestHeader(value = "X-Tenant-Id", required = false) String tenantId) {
+        String processId = UUID.randomUUID().toString();
+        System.out.println("[CONTROLLER] POST /process/sync - ProcessId: " + processId);
+        System.out.println("[CONTROLLER] Arquivo: " + file.getOriginalFilename() + " (" + file.getSize() + " bytes)");
+
+        try {
+            String validationError = validateUpload(file);
+            if (validationError != null) {
+                ProcessingResult errorResult = ProcessingResult.error(processId, validationError);
+                return ResponseEntity.badRequest().body(errorResult);
+            }
+
+            ProcessingOptions options = new ProcessingOptions();
+            options.setBypassCache(noCache);
+            options.setIncludeImage(includeImage);
+            options.setRoi(roiRegistry.resolve(cameraId, roi));
+            options.setAnonymization(anonymizationRegistry.resolve(anonymization, tenantId).getName());
+            if (timeoutMs != null && timeoutMs > 0) {
+                options.setTimeoutMs(timeoutMs);
+            }
+
+            ProcessingResult result = imageProcessorService.processImageSync(processId, file.getBytes(), options);
+            System.out.println("[CONTROLLER] Processamento síncrono concluído para " + processId + " - Status: " + result.getStatus());
+
+            return ResponseEntity.ok(result);
+
+        } catch (RejectedExecutionException e) {
+            // Fila do pipeline cheia: tratado no GlobalExceptionHandler (429)
+            throw e;
+
+        } catch (IllegalArgumentException e) {
+            System.out.println("[CONTROLLER] Parâmetro inválido: " + e.getMessage());
+            return ResponseEntity.badRequest().body(ProcessingResult.error(processId, e.getMessage()));
+
+        } catch (Exception e) {
+            System.err.println("[CONTROLLER] Erro no processamento síncrono: " + e.getMessage());
+            e.printStackTrace();
+
+            ProcessingResult errorResult = ProcessingResult.error(processId, "Erro interno: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResult);
+        }
+    }
+
+    // Lote de imagens (várias partes multipart e/ou arquivos zip) sob um único batchId.
+    // Cada item recebe o processId batchId-índice e também pode ser consultado em /status
+    @PostMapping(value = "/process/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Map<String, Object>> processBatch(@RequestParam("images") List<MultipartFile> files,
+                                                            @RequestParam(value = "noCache", defaultValue = "false") boolean noCache,
+                                                            @RequestParam(value = "cameraId", required = false) String cameraId,
+                                                            @RequestParam(value = "roi", required = false) String roi,
+                                                            @RequestParam(value = "anonymization", required = false) String anonymization,
+                                                            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantId) {
+        System.out.println("[CONTROLLER] POST /process/batch - " + files.size() + " arquivo(s)");
+
+        try {
+            List<byte[]> images = new ArrayList<>();
+            long acceptedBytes = 0;
+            for (MultipartFile file : files) {
+                if (isZipFile(file)) {
+                    List<byte[]> extracted = batchProcessingService.extractZipImages(file.getInputStream(), acceptedBytes);
+                    for (byte[] image : extracted) {
+                        acceptedBytes += image.length;
+                    }
+                    images.addAll(extracted);
+                } else {
+                    String validationError = validateUpload(file);
+                    if (validationError != null) {
+                        return ResponseEntity.badRequest()
+                                .body(createBatchErrorResponse(file.getOriginalFilename() + ": " + validationError));
+                    }
+                    images.add(file.getBytes());
+                    acceptedBytes += file.getSize();
+                }
+
+                if (images.size() > batchProcessingService.getMaxImages()) {
+                    return ResponseEntity.badRequest()
+                            .body(createBatchErrorResponse("Máximo de " + batchProcessingService.getMaxImages() + " imagens por lote"));
+                }
+            }
+
+            if (images.isEmpty()) {
+                return ResponseEntity.badRequest().body(createBatchErrorResponse("Nenhuma imagem no lote"));
+            }
+
+            ProcessingOptions options = new ProcessingOptions();
+            options.setBypassCache(noCache);
+            options.setRoi(roiRegistry.resolve(cameraId, roi));
+            options.setAnonymization(anonymizationRegistry.resolve(anonymization, tenantId).getName());
+
+            String batchId = batchProcessingService.submit(images, options);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("batchId", batchId);
+            response.put("total", images.size());
+            response.put("status", "PROCESSING");
+            response.put("message", "Lote iniciado. Use o batchId para verificar o status.");
+
+            return ResponseEntity.accepted().body(response);
+
+        } catch (IllegalArgumentException e) {
+            System.out.println("[CONTROLLER] Lote inválido: " + e.getMessage());
+            return ResponseEntity.badRequest().body(createBatchErrorResponse(e.getMessage()));
+
+        } catch (Exception e) {
+            System.err.println("[CONTROLLER] Erro no lote: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createBatchErrorResponse("Erro interno: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/batch/{batchId}")
+    public ResponseEntity<BatchResult> getBatchStatus(@PathVariable String batchId,
+                                                      @RequestParam(value = "includeImages", defaultValue = "false") boolean includeImages) {
+        System.out.println("[CONTROLLER] GET /batch/" + batchId + " requisitado");
+
+        BatchResult result = batchProcessingService.getBatchResult(batchId, includeImages);
+        if (result == null) {
+            System.out.println("[CONTROLLER] BatchId não encontrado: " + batchId);
+            return ResponseEntity.notFound().build();
+        }
+
+        System.out.println("[CONTROLLER] Lote " + batchId + ": " + result.getStatus() + " (" +
+                result.getCompleted() + "/" + result.getTotal() + " concluídas, " + result.getFailed() + " com erro)");
+        return ResponseEntity.ok(result);
+    }
+
+    // Push do resultado via SSE: um evento "result" quando o processamento termina
+    @GetMapping(value = "/stream/{processId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamProcessingResult(@PathVariable String processId) {
+        System.out.println("[CONTROLLER] GET /stream/" + processId + " requisitado");
+
+        if (imageProcessorService.getProcessingStatus(processId) == null) {
+            System.out.println("[CONTROLLER] ProcessId não encontrado: " + processId);
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok(resultStreamPublisher.subscribe(processId,
+                () -> imageProcessorService.getProcessingStatus(processId)));
+    }
+
+    // Push do lote via SSE: snapshot inicial, um evento "item" por imagem e um "batch" final
+    @GetMapping(value = "/batch/{batchId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamBatchResult(@PathVariable String batchId) {
+        System.out.println("[CONTROLLER] GET /batch/" + batchId + "/stream requisitado");
+
+        if (batchProcessingService.getBatchResult(batchId, false) == null) {
+            System.out.println("[CONTROLLER] BatchId não encontrado: " + batchId);
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok(resultStreamPublisher.subscribeBatch(batchId,
+                () -> batchProcessingService.getBatchResult(batchId, false)));
+    }
+
     @GetMapping("/status/{processId}")
     public ResponseEntity<ProcessingResult> getProcessingStatus(@PathVariable String processId) {
         System.out.println("[CONTROLLER] GET /status/" + processId + " requisitado");
@@ -105,6 +305,13 @@ public class LicensePlateController {
 
             System.out.println("[CONTROLLER] Status encontrado para " + processId + ": " + result.getStatus());
 
+            // Etapa do pipeline rejeitada por fila cheia: mesmo 429 do upload rejeitado na entrada
+            if ("REJECTED".equals(result.getStatus())) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(result);
+            }
+
             // Log detalhado do resultado
             if ("COMPLETED".equals(result.getStatus())) {
                 System.out.println("[CONTROLLER] Detalhes: placa=" + result.getLicensePlate() +
@@ -124,6 +331,23 @@ public class LicensePlateController {
         }
     }
 
+    // Imagem processada em binário, sem o overhead do base64 do JSON de status
+    @GetMapping(value = "/image/{processId}", produces = MediaType.IMAGE_JPEG_VALUE)
+    public ResponseEntity<byte[]> getProcessedImage(@PathVariable String processId) {
+        System.out.println("[CONTROLLER] GET /image/" + processId + " requisitado");
+
+        ProcessingResult result = imageProcessorService.getProcessingStatus(processId);
+        if (result == null || result.getProcessedImage() == null) {
+            System.out.println("[CONTROLLER] Imagem processada não disponível para " + processId);
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .contentLength(result.getProcessedImage().length)
+                .body(result.getProcessedImage());
+    }
+
     @DeleteMapping("/clear/{processId}")
     public ResponseEntity<Map<String, String>> clearProcessingResult(@PathVariable String processId) {
         System.out.println("[CONTROLLER] DELETE /clear/" + processId + " requisitado");
@@ -162,11 +386,84 @@ public class LicensePlateController {
         Map<String, Object> debug = new HashMap<>();
         debug.put("message", "Cache debug info");
         debug.put("cacheSize", imageProcessorService.getCacheSize()); // Vamos adicionar este método
+        debug.put("resultStore", imageProcessorService.getCacheStatistics());
+        debug.put("detectionCache", imageProcessorService.getDetectionCacheStatistics());
+        debug.put("streams", resultStreamPublisher.getStatistics());
         debug.put("timestamp", System.currentTimeMillis());
 
         return ResponseEntity.ok(debug);
     }
 
+    // Endpoint para debug do pool de OCR
+    @GetMapping("/debug/ocr-pool")
+    public ResponseEntity<Map<String, Object>> debugOcrPool() {
+        Map<String, Object> debug = new HashMap<>(tesseractPool.getMetrics());
+        debug.put("timestamp", System.currentTimeMillis());
+
+        return ResponseEntity.ok(debug);
+    }
+
+    // Mensagem de erro da validação do upload, ou null quando o arquivo é aceito
+    private String validateUpload(MultipartFile file) {
+        if (file.isEmpty()) {
+            System.out.println("[CONTROLLER] Erro: Arquivo vazio");
+            return "Arquivo de imagem não fornecido";
+        }
+
+        String contentType = file.getContentType();
+        System.out.println("[CONTROLLER] Content-Type: " + contentType);
+
+        if (contentType == null || !isValidImageType(contentType)) {
+            System.out.println("[CONTROLLER] Erro: Tipo inválido - " + contentType);
+            return "Tipo de arquivo inválido. Aceitos: JPEG, PNG, BMP";
+        }
+
+        if (file.getSize() > 10 * 1024 * 1024) {
+            System.out.println("[CONTROLLER] Erro: Arquivo muito grande - " + file.getSize());
+            return "Arquivo muito grande. Tamanho máximo: 10MB";
+        }
+
+        return null;
+    }
+
+    // Zonas de busca configuradas por câmera (plate.roi.cameras.*)
+    @GetMapping("/debug/roi")
+    public ResponseEntity<Map<String, Object>> debugRoi() {
+        Map<String, Object> debug = new HashMap<>();
+        debug.put("cameras", roiRegistry.getCameraDefinitions());
+        debug.put("timestamp", System.currentTimeMillis());
+
+        return ResponseEntity.ok(debug);
+    }
+
+    // Estratégias de anonimização disponíveis, padrão e escolha por tenant (anonymization.*)
+    @GetMapping("/debug/anonymization")
+    public ResponseEntity<Map<String, Object>> debugAnonymization() {
+        Map<String, Object> debug = new HashMap<>(anonymizationRegistry.getStatistics());
+        debug.put("cachedBoxKernels", BoxKernel.cachedKernels());
+        debug.put("timestamp", System.currentTimeMillis());
+
+        return ResponseEntity.ok(debug);
+    }
+
+    // Endpoint para debug dos executores do pipeline (fila e threads ativas por etapa)
+    @GetMapping("/debug/pipeline")
+    public ResponseEntity<Map<String, Object>> debugPipeline() {
+        Map<String, Object> debug = new HashMap<>(pipelineExecutorMetrics.getSnapshot());
+        debug.put("jpegEncoder", imageProcessorService.getEncoderStatistics());
+        debug.put("jpegPassThrough", imageProcessorService.getPassThroughStatistics());
+        debug.put("timestamp", System.currentTimeMillis());
+
+        return ResponseEntity.ok(debug);
+    }
+
+    private boolean isZipFile(MultipartFile file) {
+        String contentType = file.getContentType();
+        String filename = file.getOriginalFilename();
+        return "application/zip".equals(contentType) || "application/x-zip-compressed".equals(contentType)
+                || (filename != null && filename.toLowerCase().endsWith(".zip"));
+    }
+
     private boolean isValidImageType(String contentType) {
         return contentType.equals("image/jpeg") ||
                 contentType.equals("image/jpg") ||
@@ -180,4 +477,8 @@ public class LicensePlateController {
         error.put("timestamp", String.valueOf(System.currentTimeMillis()));
         return error;
     }
-}
\ No newline at end of file
+
+    private Map<String, Object> createBatchErrorResponse(String message) {
+        return new HashMap<>(createErrorResponse(message));
+    }
+}
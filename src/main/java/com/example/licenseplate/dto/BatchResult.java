@@ -0,0 +1,51 @@
+package com.example.licenseplate.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+// Status agregado de um lote: contadores de progresso e o resultado de cada imagem
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResult {
+
+    private String batchId;
+    private String status;
+    private int total;
+    private int completed;
+    private int failed;
+    private int pending;
+    private Long elapsedTimeMs;
+    private List<ProcessingResult> results;
+
+    public BatchResult() {}
+
+    public BatchResult(String batchId, String status) {
+        this.batchId = batchId;
+        this.status = status;
+    }
+
+    // Getters and Setters
+    public String getBatchId() { return batchId; }
+    public void setBatchId(String batchId) { this.batchId = batchId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public int getCompleted() { return completed; }
+    public void setCompleted(int completed) { this.completed = completed; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    public int getPending() { return pending; }
+    public void setPending(int pending) { this.pending = pending; }
+
+    public Long getElapsedTimeMs() { return elapsedTimeMs; }
+    public void setElapsedTimeMs(Long elapsedTimeMs) { this.elapsedTimeMs = elapsedTimeMs; }
+
+    public List<ProcessingResult> getResults() { return results; }
+    public void setResults(List<ProcessingResult> results) { this.results = results; }
+}
@@ -0,0 +1,41 @@
+package com.example.licenseplate.dto;
+
+// Opções por requisição repassadas do controller para o pipeline de processamento
+public class ProcessingOptions {
+
+    // Ignora o cache de detecção (força detecção e OCR mesmo para imagens já vistas)
+    private boolean bypassCache;
+
+    // Prazo da requisição em ms; null usa image.processing.timeout-ms
+    private Long timeoutMs;
+
+    // Quando false, pula blur e codificação JPEG e devolve apenas placa e coordenadas
+    private boolean includeImage = true;
+
+    // Zonas de busca (da câmera ou da própria requisição); null varre a imagem inteira
+    private RegionOfInterest roi;
+
+    // Nome da estratégia de anonimização da placa; null usa a padrão (anonymization.default-strategy)
+    private String anonymization;
+
+    public ProcessingOptions() {}
+
+    public static ProcessingOptions defaults() {
+        return new ProcessingOptions();
+    }
+
+    public boolean isBypassCache() { return bypassCache; }
+    public void setBypassCache(boolean bypassCache) { this.bypassCache = bypassCache; }
+
+    public Long getTimeoutMs() { return timeoutMs; }
+    public void setTimeoutMs(Long timeoutMs) { this.timeoutMs = timeoutMs; }
+
+    public boolean isIncludeImage() { return includeImage; }
+    public void setIncludeImage(boolean includeImage) { this.includeImage = includeImage; }
+
+    public RegionOfInterest getRoi() { return roi; }
+    public void setRoi(RegionOfInterest roi) { this.roi = roi; }
+
+    public String getAnonymization() { return anonymization; }
+    public void setAnonymization(String anonymization) { this.anonymization = anonymization; }
+}
@@ -1,7 +1,10 @@
 package com.example.licenseplate.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
+import java.util.Base64;
+
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class ProcessingResult {
 
@@ -10,7 +13,9 @@ public class ProcessingResult {
     private String licensePlate;
     private String plateFormat;
     private PlateCoordinates coordinates;
-    private String processedImageBase64;
+    // JPEG processado em binário; o base64 só é gerado quando o JSON é serializado
+    @JsonIgnore
+    private byte[] processedImage;
     private String message;
     private Long processingTimeMs;
 
@@ -30,20 +35,28 @@ public class ProcessingResult {
         return new ProcessingResult("PROCESSING", processId);
     }
 
-    public static ProcessingResult completed(String processId, String processedImageBase64) {
+    public static ProcessingResult completed(String processId, byte[] processedImage) {
         ProcessingResult result = new ProcessingResult("COMPLETED", processId);
-        result.processedImageBase64 = processedImageBase64;
+        result.processedImage = processedImage;
         return result;
     }
 
     public static ProcessingResult completedWithPlate(String processId, String licensePlate,
                                                       String plateFormat, PlateCoordinates coordinates,
-                                                      String processedImageBase64) {
+                                                      byte[] processedImage) {
         ProcessingResult result = new ProcessingResult("COMPLETED", processId);
         result.licensePlate = licensePlate;
         result.plateFormat = plateFormat;
         result.coordinates = coordinates;
-        result.processedImageBase64 = processedImageBase64;
+        result.processedImage = processedImage;
+        return result;
+    }
+
+    // Fila de alguma etapa do pipeline cheia: não é falha da imagem, o cliente deve reenviar
+    // (429 em /process/sync e /status)
+    public static ProcessingResult rejected(String processId, String message) {
+        ProcessingResult result = new ProcessingResult("REJECTED", processId);
+        result.message = message;
         return result;
     }
 
@@ -53,6 +66,25 @@ public class ProcessingResult {
         return result;
     }
 
+    // Cópia do resultado para outro processId (reaproveitamento via cache de detecção)
+    public ProcessingResult copyFor(String newProcessId) {
+        ProcessingResult copy = new ProcessingResult(status, newProcessId);
+        copy.licensePlate = licensePlate;
+        copy.plateFormat = plateFormat;
+        copy.coordinates = coordinates;
+        copy.processedImage = processedImage;
+        copy.message = message;
+        return copy;
+    }
+
+    // Mesmo resultado sem a imagem processada (resumos de lote e eventos de streaming)
+    public ProcessingResult withoutImage() {
+        ProcessingResult copy = copyFor(processId);
+        copy.processedImage = null;
+        copy.processingTimeMs = processingTimeMs;
+        return copy;
+    }
+
     // Getters and Setters
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
@@ -69,8 +101,17 @@ public class ProcessingResult {
     public PlateCoordinates getCoordinates() { return coordinates; }
     public void setCoordinates(PlateCoordinates coordinates) { this.coordinates = coordinates; }
 
-    public String getProcessedImageBase64() { return processedImageBase64; }
-    public void setProcessedImageBase64(String processedImageBase64) { this.processedImageBase64 = processedImageBase64; }
+    @JsonIgnore
+    public byte[] getProcessedImage() { return processedImage; }
+    public void setProcessedImage(byte[] processedImage) { this.processedImage = processedImage; }
+
+    public String getProcessedImageBase64() {
+        return processedImage != null ? Base64.getEncoder().encodeToString(processedImage) : null;
+    }
+
+    public void setProcessedImageBase64(String processedImageBase64) {
+        this.processedImage = processedImageBase64 != null ? Base64.getDecoder().decode(processedImageBase64) : null;
+    }
 
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
@@ -0,0 +1,152 @@
+package com.example.licenseplate.dto;
+
+import java.awt.Rectangle;
+import java.awt.geom.Path2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+// Zonas onde a detecção procura placas, em coordenadas relativas (0 a 1) para valerem em
+// qualquer resolução da câmera. Formato: zonas separadas por ";", cada uma um retângulo
+// "x,y,largura,altura" ou um polígono "poly:x1 y1,x2 y2,x3 y3,...".
+// Ex.: "0.1,0.55,0.8,0.4;poly:0.05 0.3,0.5 0.3,0.55 0.6,0.0 0.6"
+public final class RegionOfInterest {
+
+    private final String spec;
+    private final List<double[]> zones; // cada zona: x1, y1, x2, y2, ... (retângulos viram 4 vértices)
+
+    private RegionOfInterest(String spec, List<double[]> zones) {
+        this.spec = spec;
+        this.zones = zones;
+    }
+
+    public static RegionOfInterest parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            throw new IllegalArgumentException("ROI vazia");
+        }
+
+        List<double[]> zones = new ArrayList<>();
+        for (String zone : spec.split(";")) {
+            String trimmed = zone.trim();
+            if (trimmed.isEmpty()) continue;
+
+            if (trimmed.toLowerCase(Locale.ROOT).startsWith("poly:")) {
+                zones.add(parsePolygon(trimmed.substring(5)));
+            } else {
+                zones.add(parseRectangle(trimmed));
+            }
+        }
+
+        if (zones.isEmpty()) {
+            throw new IllegalArgumentException("ROI sem zonas: " + spec);
+        }
+        return new RegionOfInterest(spec.replaceAll("\\s+", " ").trim(), Collections.unmodifiableList(zones));
+    }
+
+    // Texto normalizado da definição (usado também na chave do cache de detecção)
+    public String getSpec() {
+        return spec;
+    }
+
+    public int getZoneCount() {
+        return zones.size();
+    }
+
+    public Zones resolve(int width, int height) {
+        List<Path2D.Double> shapes = new ArrayList<>(zones.size());
+        List<Rectangle> bounds = new ArrayList<>(zones.size());
+
+        for (double[] points : zones) {
+            Path2D.Double shape = new Path2D.Double();
+            shape.moveTo(points[0] * width, points[1] * height);
+            for (int i = 2; i < points.length; i += 2) {
+                shape.lineTo(points[i] * width, points[i + 1] * height);
+            }
+            shape.closePath();
+
+            Rectangle box = shape.getBounds().intersection(new Rectangle(0, 0, width, height));
+            if (!box.isEmpty()) {
+                shapes.add(shape);
+                bounds.add(box);
+            }
+        }
+        return new Zones(shapes, bounds);
+    }
+
+    private static double[] parseRectangle(String text) {
+        String[] parts = text.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Retângulo de ROI deve ter x,y,largura,altura: " + text);
+        }
+        double x = parseCoordinate(parts[0]), y = parseCoordinate(parts[1]);
+        double w = parseCoordinate(parts[2]), h = parseCoordinate(parts[3]);
+        if (w <= 0 || h <= 0) {
+            throw new IllegalArgumentException("Retângulo de ROI sem área: " + text);
+        }
+        double x2 = Math.min(1.0, x + w), y2 = Math.min(1.0, y + h);
+        return new double[]{x, y, x2, y, x2, y2, x, y2};
+    }
+
+    private static double[] parsePolygon(String text) {
+        String[] vertices = text.split(",");
+        if (vertices.length < 3) {
+            throw new IllegalArgumentException("Polígono de ROI precisa de ao menos 3 vértices: " + text);
+        }
+
+        double[] points = new double[vertices.length * 2];
+        for (int i = 0; i < vertices.length; i++) {
+            String[] xy = vertices[i].trim().split("\\s+");
+            if (xy.length != 2) {
+                throw new IllegalArgumentException("Vértice de ROI inválido (esperado \"x y\"): " + vertices[i]);
+            }
+            points[2 * i] = parseCoordinate(xy[0]);
+            points[2 * i + 1] = parseCoordinate(xy[1]);
+        }
+        return points;
+    }
+
+    private static double parseCoordinate(String text) {
+        double value;
+        try {
+            value = Double.parseDouble(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Coordenada de ROI inválida: " + text);
+        }
+        if (value < 0 || value > 1) {
+            throw new IllegalArgumentException("Coordenadas de ROI são relativas (0 a 1): " + text);
+        }
+        return value;
+    }
+
+    // Zonas em pixels para uma imagem específica
+    public static final class Zones {
+        private final List<Path2D.Double> shapes;
+        private final List<Rectangle> bounds;
+
+        Zones(List<Path2D.Double> shapes, List<Rectangle> bounds) {
+            this.shapes = shapes;
+            this.bounds = bounds;
+        }
+
+        // Retângulos envolventes de cada zona, recortados à imagem: é o que as varreduras percorrem
+        public List<Rectangle> getBounds() {
+            return bounds;
+        }
+
+        // A região pertence à ROI quando o centro cai dentro de alguma zona
+        public boolean containsCenter(Rectangle region) {
+            double cx = region.getCenterX(), cy = region.getCenterY();
+            for (Path2D.Double shape : shapes) {
+                if (shape.contains(cx, cy)) return true;
+            }
+            return false;
+        }
+
+        public long area() {
+            long total = 0;
+            for (Rectangle box : bounds) total += (long) box.width * box.height;
+            return total;
+        }
+    }
+}
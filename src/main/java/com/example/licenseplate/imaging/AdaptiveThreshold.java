@@ -0,0 +1,171 @@
+package com.example.licenseplate.imaging;
+
+// Binarização adaptativa sobre GrayImage (um byte por pixel).
+// O custo é linear no número de pixels e não depende do tamanho da janela:
+// MEAN usa tabela integral e GAUSSIAN aproxima o peso gaussiano com três box blurs
+// de somas corridas.
+public final class AdaptiveThreshold {
+
+    public enum Method { MEAN, GAUSSIAN }
+
+    private final Method method;
+    private final int windowSize;
+    private final int offset;
+
+    public AdaptiveThreshold(Method method, int windowSize, int offset) {
+        if (windowSize < 3) {
+            throw new IllegalArgumentException("Janela do threshold deve ser >= 3: " + windowSize);
+        }
+        this.method = method;
+        this.windowSize = windowSize | 1; // janela sempre ímpar, centrada no pixel
+        this.offset = offset;
+    }
+
+    public Method getMethod() { return method; }
+    public int getWindowSize() { return windowSize; }
+    public int getOffset() { return offset; }
+
+    public GrayImage apply(GrayImage src) {
+        GrayImage dst = new GrayImage(src.getWidth(), src.getHeight());
+        apply(src, dst);
+        return dst;
+    }
+
+    // Pixel vira 255 quando está acima da média local menos o offset, 0 caso contrário.
+    // src e dst têm as mesmas dimensões e podem ser a mesma imagem (binarização in-place)
+    public void apply(GrayImage src, GrayImage dst) {
+        int width = src.getWidth();
+        int height = src.getHeight();
+        int[] localMean = new int[width * height];
+
+        if (method == Method.GAUSSIAN) {
+            gaussianMean(src, localMean);
+        } else {
+            boxMean(src, localMean);
+        }
+
+        byte[] in = src.getData();
+        byte[] out = dst.getData();
+        for (int y = 0; y < height; y++) {
+            int inRow = y * src.getStride();
+            int outRow = y * dst.getStride();
+            for (int x = 0; x < width; x++) {
+                out[outRow + x] = (in[inRow + x] & 0xFF) > localMean[y * width + x] - offset ? (byte) 255 : 0;
+            }
+        }
+    }
+
+    // Média na janela centrada via tabela integral (recortada nas bordas)
+    private void boxMean(GrayImage src, int[] out) {
+        int width = src.getWidth();
+        int height = src.getHeight();
+        byte[] in = src.getData();
+        int stride = width + 1;
+        int[] integral = new int[stride * (height + 1)];
+
+        for (int y = 0; y < height; y++) {
+            int acc = 0;
+            int row = y * src.getStride();
+            int above = y * stride;
+            int current = above + stride;
+            for (int x = 0; x < width; x++) {
+                acc += in[row + x] & 0xFF;
+                integral[current + x + 1] = integral[above + x + 1] + acc;
+            }
+        }
+
+        int half = windowSize / 2;
+        for (int y = 0; y < height; y++) {
+            int y0 = Math.max(0, y - half), y1 = Math.min(height, y + half + 1);
+            for (int x = 0; x < width; x++) {
+                int x0 = Math.max(0, x - half), x1 = Math.min(width, x + half + 1);
+                int sum = integral[y1 * stride + x1] - integral[y0 * stride + x1]
+                        - integral[y1 * stride + x0] + integral[y0 * stride + x0];
+                out[y * width + x] = sum / ((x1 - x0) * (y1 - y0));
+            }
+        }
+    }
+
+    // Média ponderada aproximadamente gaussiana: três passadas de box blur separável.
+    // Sigma segue a convenção do OpenCV para o tamanho de janela
+    private void gaussianMean(GrayImage src, int[] out) {
+        int width = src.getWidth();
+        int height = src.getHeight();
+        double sigma = 0.3 * ((windowSize - 1) * 0.5 - 1) + 0.8;
+        int[] radii = boxRadiiForGauss(sigma, 3);
+
+        byte[] in = src.getData();
+        for (int y = 0; y < height; y++) {
+            int row = y * src.getStride();
+            for (int x = 0; x < width; x++) {
+                out[y * width + x] = in[row + x] & 0xFF;
+            }
+        }
+
+        int[] scratch = new int[width * height];
+
+        for (int radius : radii) {
+            boxBlurHorizontal(out, scratch, width, height, radius);
+            boxBlurVertical(scratch, out, width, height, radius);
+        }
+    }
+
+    private static int[] boxRadiiForGauss(double sigma, int passes) {
+        double idealWidth = Math.sqrt((12 * sigma * sigma / passes) + 1);
+        int lower = (int) Math.floor(idealWidth);
+        if (lower % 2 == 0) lower--;
+        int upper = lower + 2;
+
+        double idealCount = (12 * sigma * sigma - passes * lower * lower - 4 * passes * lower - 3 * passes)
+                / (-4 * lower - 4);
+        long lowerPasses = Math.round(idealCount);
+
+        int[] radii = new int[passes];
+        for (int i = 0; i < passes; i++) {
+            radii[i] = Math.max(0, ((i < lowerPasses ? lower : upper) - 1) / 2);
+        }
+        return radii;
+    }
+
+    private static void boxBlurHorizontal(int[] src, int[] dst, int width, int height, int radius) {
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            int sum = 0;
+            int right = Math.min(width - 1, radius);
+            for (int x = 0; x <= right; x++) sum += src[row + x];
+
+            for (int x = 0; x < width; x++) {
+                int x0 = Math.max(0, x - radius), x1 = Math.min(width - 1, x + radius);
+                dst[row + x] = sum / (x1 - x0 + 1);
+
+                if (x + radius + 1 < width) sum += src[row + x + radius + 1];
+                if (x - radius >= 0) sum -= src[row + x - radius];
+            }
+        }
+    }
+
+    // Somas corridas por coluna, percorrendo linha a linha (acesso sequencial à memória)
+    private static void boxBlurVertical(int[] src, int[] dst, int width, int height, int radius) {
+        int[] columnSum = new int[width];
+        int bottom = Math.min(height - 1, radius);
+        for (int y = 0; y <= bottom; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) columnSum[x] += src[row + x];
+        }
+
+        for (int y = 0; y < height; y++) {
+            int count = Math.min(height - 1, y + radius) - Math.max(0, y - radius) + 1;
+            int row = y * width;
+            for (int x = 0; x < width; x++) dst[row + x] = columnSum[x] / count;
+
+            if (y + radius + 1 < height) {
+                int add = (y + radius + 1) * width;
+                for (int x = 0; x < width; x++) columnSum[x] += src[add + x];
+            }
+            if (y - radius >= 0) {
+                int remove = (y - radius) * width;
+                for (int x = 0; x < width; x++) columnSum[x] -= src[remove + x];
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.licenseplate.imaging;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Kernel do box blur para um raio: em vez de dividir cada soma de canal pela largura da
+// janela, consulta uma tabela soma -> média montada uma única vez. As instâncias são
+// imutáveis e ficam em cache por raio, compartilhadas entre requisições e threads.
+public final class BoxKernel {
+
+    // Raios acima disso não entram no cache (tabelas grandes e uso raro)
+    private static final int MAX_CACHED_RADIUS = 64;
+
+    private static final ConcurrentHashMap<Integer, BoxKernel> CACHE = new ConcurrentHashMap<>();
+
+    private final int radius;
+    private final int[] divideTable;
+
+    private BoxKernel(int radius) {
+        this.radius = radius;
+        int window = 2 * radius + 1;
+        this.divideTable = new int[255 * window + 1];
+        for (int sum = 0; sum < divideTable.length; sum++) {
+            divideTable[sum] = sum / window;
+        }
+    }
+
+    public static BoxKernel forRadius(int radius) {
+        int r = Math.max(1, radius);
+        if (r > MAX_CACHED_RADIUS) {
+            return new BoxKernel(r);
+        }
+        return CACHE.computeIfAbsent(r, BoxKernel::new);
+    }
+
+    public int getRadius() { return radius; }
+    public int getWindow() { return 2 * radius + 1; }
+
+    // Índice: soma de um canal na janela (0 a 255 * janela)
+    int[] getDivideTable() { return divideTable; }
+
+    public static int cachedKernels() {
+        return CACHE.size();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.licenseplate.imaging;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Rotulação de componentes conexos (vizinhança-8) em imagem binária, em duas passadas com
+// union-find: a primeira atribui rótulos provisórios olhando os vizinhos já visitados
+// (esquerda e as três posições da linha de cima) e une as equivalências; a segunda resolve
+// cada rótulo para a raiz e acumula a caixa delimitadora e a área do componente.
+// Pixels diferentes de zero são primeiro plano.
+public final class ConnectedComponents {
+
+    private ConnectedComponents() {}
+
+    // Caixas delimitadoras dos componentes com pelo menos minPixels pixels, em ordem de varredura
+    public static List<Rectangle> boundingBoxes(GrayImage binary, int minPixels) {
+        int width = binary.getWidth();
+        int height = binary.getHeight();
+        List<Rectangle> boxes = new ArrayList<>();
+        if (width == 0 || height == 0) {
+            return boxes;
+        }
+
+        byte[] data = binary.getData();
+        int stride = binary.getStride();
+        int[] labels = new int[width * height];
+        int[] parent = new int[Math.max(16, width * height / 8)];
+        int next = 1;
+
+        for (int y = 0; y < height; y++) {
+            int row = y * stride;
+            int labelRow = y * width;
+            for (int x = 0; x < width; x++) {
+                if (data[row + x] == 0) continue;
+
+                int label = 0;
+                if (x > 0) label = merge(parent, label, labels[labelRow + x - 1]);
+                if (y > 0) {
+                    int up = labelRow - width + x;
+                    if (x > 0) label = merge(parent, label, labels[up - 1]);
+                    label = merge(parent, label, labels[up]);
+                    if (x < width - 1) label = merge(parent, label, labels[up + 1]);
+                }
+
+                if (label == 0) {
+                    if (next == parent.length) {
+                        parent = Arrays.copyOf(parent, parent.length * 2);
+                    }
+                    label = next++;
+                    parent[label] = label;
+                }
+                labels[labelRow + x] = label;
+            }
+        }
+
+        // Estatísticas indexadas pela raiz de cada rótulo
+        int[] minX = new int[next], minY = new int[next], maxX = new int[next], maxY = new int[next];
+        int[] count = new int[next];
+        Arrays.fill(minX, Integer.MAX_VALUE);
+        Arrays.fill(minY, Integer.MAX_VALUE);
+        Arrays.fill(maxX, -1);
+        Arrays.fill(maxY, -1);
+
+        for (int y = 0; y < height; y++) {
+            int labelRow = y * width;
+            for (int x = 0; x < width; x++) {
+                int label = labels[labelRow + x];
+                if (label == 0) continue;
+
+                int root = find(parent, label);
+                count[root]++;
+                if (x < minX[root]) minX[root] = x;
+                if (x > maxX[root]) maxX[root] = x;
+                if (y < minY[root]) minY[root] = y;
+                if (y > maxY[root]) maxY[root] = y;
+            }
+        }
+
+        for (int label = 1; label < next; label++) {
+            if (count[label] >= Math.max(1, minPixels)) {
+                boxes.add(new Rectangle(minX[label], minY[label], maxX[label] - minX[label] + 1, maxY[label] - minY[label] + 1));
+            }
+        }
+        return boxes;
+    }
+
+    // Une o rótulo atual com o do vizinho (0 = vizinho de fundo) e devolve a raiz resultante
+    private static int merge(int[] parent, int label, int neighbor) {
+        if (neighbor == 0) return label;
+        int neighborRoot = find(parent, neighbor);
+        if (label == 0) return neighborRoot;
+
+        int root = find(parent, label);
+        if (root == neighborRoot) return root;
+
+        // Raiz menor fica como representante, mantendo a ordem de varredura
+        if (root < neighborRoot) {
+            parent[neighborRoot] = root;
+            return root;
+        }
+        parent[root] = neighborRoot;
+        return neighborRoot;
+    }
+
+    // Busca com compressão de caminho por divisão pela metade
+    private static int find(int[] parent, int label) {
+        while (parent[label] != label) {
+            parent[label] = parent[parent[label]];
+            label = parent[label];
+        }
+        return label;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.licenseplate.imaging;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+// Imagem em escala de cinza com um byte por pixel, usada no caminho quente do detector.
+// O pixel (x, y) fica em data[y * stride + x]. A luminância segue o critério do
+// detector: (r + g + b) / 3.
+public final class GrayImage {
+
+    private final int width;
+    private final int height;
+    private final int stride;
+    private final byte[] data;
+
+    public GrayImage(int width, int height) {
+        this(width, height, width, new byte[width * height]);
+    }
+
+    public GrayImage(int width, int height, int stride, byte[] data) {
+        if (stride < width || data.length < stride * (height - 1) + width) {
+            throw new IllegalArgumentException("Buffer incompatível com " + width + "x" + height + " (stride " + stride + ")");
+        }
+        this.width = width;
+        this.height = height;
+        this.stride = stride;
+        this.data = data;
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getStride() { return stride; }
+    public byte[] getData() { return data; }
+
+    public int get(int x, int y) {
+        return data[y * stride + x] & 0xFF;
+    }
+
+    public void set(int x, int y, int value) {
+        data[y * stride + x] = (byte) value;
+    }
+
+    // Conversão sem alocação por pixel: lê direto do DataBufferByte/DataBufferInt quando
+    // o layout é conhecido e cai para getRGB em blocos de linha nos demais casos
+    public static GrayImage fromBufferedImage(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        GrayImage gray = new GrayImage(width, height);
+
+        Raster raster = image.getRaster();
+        DataBuffer buffer = raster.getDataBuffer();
+        int type = image.getType();
+
+        if (buffer instanceof DataBufferByte && raster.getSampleModel() instanceof ComponentSampleModel
+                && (type == BufferedImage.TYPE_BYTE_GRAY || type == BufferedImage.TYPE_3BYTE_BGR
+                || type == BufferedImage.TYPE_4BYTE_ABGR)) {
+            copyFromBytes(raster, (DataBufferByte) buffer, type == BufferedImage.TYPE_BYTE_GRAY, gray);
+        } else if (buffer instanceof DataBufferInt && raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+                && (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)) {
+            copyFromInts(raster, (DataBufferInt) buffer, gray);
+        } else {
+            int[] row = new int[width];
+            for (int y = 0; y < height; y++) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                int out = y * gray.stride;
+                for (int x = 0; x < width; x++) {
+                    gray.data[out + x] = (byte) luminance(row[x]);
+                }
+            }
+        }
+
+        return gray;
+    }
+
+    private static void copyFromBytes(Raster raster, DataBufferByte buffer, boolean singleBand, GrayImage gray) {
+        ComponentSampleModel model = (ComponentSampleModel) raster.getSampleModel();
+        byte[] src = buffer.getData();
+        int pixelStride = model.getPixelStride();
+        int scanlineStride = model.getScanlineStride();
+        int[] bandOffsets = model.getBandOffsets();
+        int base = buffer.getOffset()
+                - raster.getSampleModelTranslateX() * pixelStride
+                - raster.getSampleModelTranslateY() * scanlineStride;
+
+        for (int y = 0; y < gray.height; y++) {
+            int in = base + y * scanlineStride;
+            int out = y * gray.stride;
+
+            if (singleBand) {
+                int offset = in + bandOffsets[0];
+                for (int x = 0; x < gray.width; x++) {
+                    gray.data[out + x] = src[offset + x * pixelStride];
+                }
+            } else {
+                // Bandas na ordem R, G, B (offsets dependem do layout BGR/ABGR)
+                int r = in + bandOffsets[0], g = in + bandOffsets[1], b = in + bandOffsets[2];
+                for (int x = 0; x < gray.width; x++) {
+                    int p = x * pixelStride;
+                    gray.data[out + x] = (byte) (((src[r + p] & 0xFF) + (src[g + p] & 0xFF) + (src[b + p] & 0xFF)) / 3);
+                }
+            }
+        }
+    }
+
+    private static void copyFromInts(Raster raster, DataBufferInt buffer, GrayImage gray) {
+        SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) raster.getSampleModel();
+        int[] src = buffer.getData();
+        int scanlineStride = model.getScanlineStride();
+        int base = buffer.getOffset()
+                - raster.getSampleModelTranslateX()
+                - raster.getSampleModelTranslateY() * scanlineStride;
+
+        for (int y = 0; y < gray.height; y++) {
+            int in = base + y * scanlineStride;
+            int out = y * gray.stride;
+            for (int x = 0; x < gray.width; x++) {
+                gray.data[out + x] = (byte) luminance(src[in + x]);
+            }
+        }
+    }
+
+    public static int luminance(int rgb) {
+        return (((rgb >> 16) & 0xFF) + ((rgb >> 8) & 0xFF) + (rgb & 0xFF)) / 3;
+    }
+
+    // Cópia compacta (stride == width) da região, recortada aos limites da imagem
+    public GrayImage crop(Rectangle region) {
+        int x0 = Math.max(0, region.x), y0 = Math.max(0, region.y);
+        int x1 = Math.min(width, region.x + region.width), y1 = Math.min(height, region.y + region.height);
+        GrayImage cropped = new GrayImage(Math.max(0, x1 - x0), Math.max(0, y1 - y0));
+
+        for (int y = 0; y < cropped.height; y++) {
+            System.arraycopy(data, (y0 + y) * stride + x0, cropped.data, y * cropped.stride, cropped.width);
+        }
+        return cropped;
+    }
+
+    // Tesseract e ImageIO trabalham com BufferedImage: cópia direta para TYPE_BYTE_GRAY
+    public BufferedImage toBufferedImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] dst = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(data, y * stride, dst, y * width, width);
+        }
+        return image;
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.licenseplate.imaging;
+
+// Operadores sobre GrayImage trabalhando direto no buffer de bytes
+public final class GrayOps {
+
+    private GrayOps() {}
+
+    // Box blur separável com somas corridas (bordas recortadas). Custo independe do raio
+    public static GrayImage boxBlur(GrayImage src, int radius) {
+        int width = src.getWidth();
+        int height = src.getHeight();
+        GrayImage dst = new GrayImage(width, height);
+        if (radius <= 0 || width == 0 || height == 0) {
+            copy(src, dst);
+            return dst;
+        }
+
+        byte[] in = src.getData();
+        byte[] out = dst.getData();
+        int inStride = src.getStride();
+        int[] horizontal = new int[width * height];
+
+        for (int y = 0; y < height; y++) {
+            int row = y * inStride;
+            int sum = 0;
+            for (int x = 0; x <= Math.min(width - 1, radius); x++) sum += in[row + x] & 0xFF;
+
+            for (int x = 0; x < width; x++) {
+                int count = Math.min(width - 1, x + radius) - Math.max(0, x - radius) + 1;
+                horizontal[y * width + x] = sum / count;
+
+                if (x + radius + 1 < width) sum += in[row + x + radius + 1] & 0xFF;
+                if (x - radius >= 0) sum -= in[row + x - radius] & 0xFF;
+            }
+        }
+
+        int[] columnSum = new int[width];
+        for (int y = 0; y <= Math.min(height - 1, radius); y++) {
+            for (int x = 0; x < width; x++) columnSum[x] += horizontal[y * width + x];
+        }
+
+        for (int y = 0; y < height; y++) {
+            int count = Math.min(height - 1, y + radius) - Math.max(0, y - radius) + 1;
+            for (int x = 0; x < width; x++) out[y * width + x] = (byte) (columnSum[x] / count);
+
+            if (y + radius + 1 < height) {
+                int add = (y + radius + 1) * width;
+                for (int x = 0; x < width; x++) columnSum[x] += horizontal[add + x];
+            }
+            if (y - radius >= 0) {
+                int remove = (y - radius) * width;
+                for (int x = 0; x < width; x++) columnSum[x] -= horizontal[remove + x];
+            }
+        }
+
+        return dst;
+    }
+
+    // Redução pela metade com média de blocos 2x2 (antialias suficiente para a pirâmide).
+    // Linha/coluna ímpar final é descartada
+    public static GrayImage downsample2x(GrayImage src) {
+        int width = src.getWidth() / 2;
+        int height = src.getHeight() / 2;
+        GrayImage dst = new GrayImage(width, height);
+
+        byte[] in = src.getData();
+        byte[] out = dst.getData();
+        int inStride = src.getStride();
+
+        for (int y = 0; y < height; y++) {
+            int top = 2 * y * inStride;
+            int bottom = top + inStride;
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                int sx = 2 * x;
+                int sum = (in[top + sx] & 0xFF) + (in[top + sx + 1] & 0xFF)
+                        + (in[bottom + sx] & 0xFF) + (in[bottom + sx + 1] & 0xFF);
+                out[row + x] = (byte) ((sum + 2) >> 2);
+            }
+        }
+        return dst;
+    }
+
+    // Sobel 3x3 separável: Gx = [1 2 1]ᵀ·[-1 0 1] e Gy = [-1 0 1]ᵀ·[1 2 1]. Cada linha
+    // guarda a diferença e a suavização horizontais em três linhas circulares, então a
+    // imagem é lida uma única vez. Magnitude L1 / 4, saturada em 255; bordas replicadas
+    public static GrayImage sobel(GrayImage src) {
+        int width = src.getWidth();
+        int height = src.getHeight();
+        GrayImage dst = new GrayImage(width, height);
+        if (width == 0 || height == 0) {
+            return dst;
+        }
+
+        int[][] diff = new int[3][width];
+        int[][] smooth = new int[3][width];
+        byte[] out = dst.getData();
+
+        // Linhas -1 e 0 (a linha -1 replica a 0)
+        horizontalSobelRow(src, 0, diff[1], smooth[1]);
+        System.arraycopy(diff[1], 0, diff[0], 0, width);
+        System.arraycopy(smooth[1], 0, smooth[0], 0, width);
+
+        for (int y = 0; y < height; y++) {
+            int above = y % 3, current = (y + 1) % 3, below = (y + 2) % 3;
+            horizontalSobelRow(src, Math.min(height - 1, y + 1), diff[below], smooth[below]);
+
+            int[] dAbove = diff[above], dCurrent = diff[current], dBelow = diff[below];
+            int[] sAbove = smooth[above], sBelow = smooth[below];
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                int gx = dAbove[x] + 2 * dCurrent[x] + dBelow[x];
+                int gy = sBelow[x] - sAbove[x];
+                out[row + x] = (byte) Math.min(255, (Math.abs(gx) + Math.abs(gy)) >> 2);
+            }
+        }
+        return dst;
+    }
+
+    private static void horizontalSobelRow(GrayImage src, int y, int[] diff, int[] smooth) {
+        byte[] in = src.getData();
+        int width = src.getWidth();
+        int row = y * src.getStride();
+        for (int x = 0; x < width; x++) {
+            int left = in[row + Math.max(0, x - 1)] & 0xFF;
+            int center = in[row + x] & 0xFF;
+            int right = in[row + Math.min(width - 1, x + 1)] & 0xFF;
+            diff[x] = right - left;
+            smooth[x] = left + 2 * center + right;
+        }
+    }
+
+    public static int[] histogram(GrayImage image) {
+        int[] histogram = new int[256];
+        byte[] data = image.getData();
+        for (int y = 0; y < image.getHeight(); y++) {
+            int row = y * image.getStride();
+            for (int x = 0; x < image.getWidth(); x++) {
+                histogram[data[row + x] & 0xFF]++;
+            }
+        }
+        return histogram;
+    }
+
+    // Equalização por tabela (LUT) montada da distribuição acumulada. src e dst podem ser a mesma imagem
+    public static void equalizeHistogram(GrayImage src, GrayImage dst) {
+        int[] histogram = histogram(src);
+        long total = (long) src.getWidth() * src.getHeight();
+
+        // Primeiro nível presente vira 0, para não desperdiçar a faixa com pixels inexistentes
+        int cdfMin = 0;
+        for (int count : histogram) {
+            if (count > 0) {
+                cdfMin = count;
+                break;
+            }
+        }
+
+        byte[] lut = new byte[256];
+        long range = total - cdfMin;
+        long cdf = 0;
+        for (int i = 0; i < 256; i++) {
+            cdf += histogram[i];
+            lut[i] = range > 0 ? (byte) Math.max(0, Math.round((cdf - cdfMin) * 255.0 / range)) : (byte) i;
+        }
+
+        applyLut(src, dst, lut);
+    }
+
+    // Binarização global: 255 acima do limiar, 0 no resto. src e dst podem ser a mesma imagem
+    public static void threshold(GrayImage src, GrayImage dst, int threshold) {
+        byte[] lut = new byte[256];
+        for (int i = threshold + 1; i < 256; i++) lut[i] = (byte) 255;
+        applyLut(src, dst, lut);
+    }
+
+    private static void applyLut(GrayImage src, GrayImage dst, byte[] lut) {
+        byte[] in = src.getData();
+        byte[] out = dst.getData();
+        for (int y = 0; y < src.getHeight(); y++) {
+            int inRow = y * src.getStride();
+            int outRow = y * dst.getStride();
+            for (int x = 0; x < src.getWidth(); x++) {
+                out[outRow + x] = lut[in[inRow + x] & 0xFF];
+            }
+        }
+    }
+
+    public static void invertInPlace(GrayImage image) {
+        byte[] data = image.getData();
+        for (int y = 0; y < image.getHeight(); y++) {
+            int row = y * image.getStride();
+            for (int x = 0; x < image.getWidth(); x++) {
+                data[row + x] = (byte) (255 - (data[row + x] & 0xFF));
+            }
+        }
+    }
+
+    // Fração de pixels com valor acima do limiar
+    public static double fractionAbove(GrayImage image, int threshold) {
+        long total = (long) image.getWidth() * image.getHeight();
+        if (total == 0) return 0;
+
+        byte[] data = image.getData();
+        long above = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            int row = y * image.getStride();
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((data[row + x] & 0xFF) > threshold) above++;
+            }
+        }
+        return (double) above / total;
+    }
+
+    public static void copy(GrayImage src, GrayImage dst) {
+        for (int y = 0; y < src.getHeight(); y++) {
+            System.arraycopy(src.getData(), y * src.getStride(), dst.getData(), y * dst.getStride(), src.getWidth());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.licenseplate.imaging;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Pirâmide de resolução em escala de cinza: o nível 0 é a imagem original e cada nível
+// seguinte tem metade da largura e da altura. A redução para assim que o próximo nível
+// ficaria abaixo da largura mínima pedida, então o nível mais grosso tem largura entre
+// minWidth e 2 * minWidth independentemente da resolução de entrada.
+public final class ImagePyramid {
+
+    private final List<GrayImage> levels;
+
+    private ImagePyramid(List<GrayImage> levels) {
+        this.levels = levels;
+    }
+
+    public static ImagePyramid build(GrayImage base, int minWidth) {
+        List<GrayImage> levels = new ArrayList<>();
+        levels.add(base);
+
+        GrayImage current = base;
+        while (current.getWidth() / 2 >= minWidth && current.getHeight() / 2 > 0) {
+            current = GrayOps.downsample2x(current);
+            levels.add(current);
+        }
+        return new ImagePyramid(Collections.unmodifiableList(levels));
+    }
+
+    public int getLevelCount() {
+        return levels.size();
+    }
+
+    public GrayImage getLevel(int level) {
+        return levels.get(level);
+    }
+
+    public int getCoarsestLevel() {
+        return levels.size() - 1;
+    }
+
+    public GrayImage getCoarsest() {
+        return levels.get(getCoarsestLevel());
+    }
+
+    // Fator entre um pixel do nível e um pixel do nível 0
+    public int scaleOf(int level) {
+        return 1 << level;
+    }
+
+    // Converte um retângulo do nível para coordenadas do nível 0, recortado aos limites da base
+    public Rectangle toBase(Rectangle region, int level) {
+        int scale = scaleOf(level);
+        GrayImage base = levels.get(0);
+        int x0 = Math.max(0, region.x * scale);
+        int y0 = Math.max(0, region.y * scale);
+        int x1 = Math.min(base.getWidth(), (region.x + region.width) * scale);
+        int y1 = Math.min(base.getHeight(), (region.y + region.height) * scale);
+        return new Rectangle(x0, y0, Math.max(0, x1 - x0), Math.max(0, y1 - y0));
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.licenseplate.imaging;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+// Tabelas de soma acumulada (summed-area tables) construídas uma vez por imagem.
+// Qualquer estatística de retângulo vira uma consulta O(1) com quatro leituras.
+//
+// As somas usam aritmética modular em int: a - b - c + d continua correto enquanto
+// o valor real do retângulo couber em 32 bits sem sinal (até ~16M pixels de luminância).
+public final class IntegralImage {
+
+    private final int width;
+    private final int height;
+    private final int stride;
+
+    // Brilho médio (r+g+b)/3 por pixel, mesmo critério usado pelo detector
+    private final GrayImage luminance;
+
+    private final int[] luminanceSum;
+    private final int[] brightCount;
+    private final int[] gradientCount;
+
+    // Construída sob demanda: é a maior tabela e só é usada para variância
+    private volatile long[] luminanceSquaredSum;
+
+    private IntegralImage(GrayImage luminance) {
+        this.width = luminance.getWidth();
+        this.height = luminance.getHeight();
+        this.stride = width + 1;
+        this.luminance = luminance;
+        this.luminanceSum = new int[stride * (height + 1)];
+        this.brightCount = new int[stride * (height + 1)];
+        this.gradientCount = new int[stride * (height + 1)];
+    }
+
+    // brightThreshold: brilho acima do qual o pixel conta como claro
+    // edgeThreshold: diferença horizontal mínima entre vizinhos para contar como borda
+    public static IntegralImage build(BufferedImage image, int brightThreshold, int edgeThreshold) {
+        return build(GrayImage.fromBufferedImage(image), brightThreshold, edgeThreshold);
+    }
+
+    public static IntegralImage build(GrayImage gray, int brightThreshold, int edgeThreshold) {
+        IntegralImage integral = new IntegralImage(gray);
+        int width = integral.width;
+        int height = integral.height;
+        int stride = integral.stride;
+        byte[] pixels = gray.getData();
+
+        for (int y = 0; y < height; y++) {
+            int row = y * gray.getStride();
+            int lumAcc = 0, brightAcc = 0, gradientAcc = 0;
+            int above = y * stride;
+            int current = above + stride;
+
+            for (int x = 0; x < width; x++) {
+                int lum = pixels[row + x] & 0xFF;
+                lumAcc += lum;
+                if (lum > brightThreshold) brightAcc++;
+                if (x < width - 1 && Math.abs(lum - (pixels[row + x + 1] & 0xFF)) > edgeThreshold) gradientAcc++;
+
+                integral.luminanceSum[current + x + 1] = integral.luminanceSum[above + x + 1] + lumAcc;
+                integral.brightCount[current + x + 1] = integral.brightCount[above + x + 1] + brightAcc;
+                integral.gradientCount[current + x + 1] = integral.gradientCount[above + x + 1] + gradientAcc;
+            }
+        }
+
+        return integral;
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    // Soma de luminância no retângulo [x0, x1) x [y0, y1), já recortado aos limites da imagem
+    public long luminanceSum(int x0, int y0, int x1, int y1) {
+        return Integer.toUnsignedLong(rectSum(luminanceSum, x0, y0, x1, y1));
+    }
+
+    public long luminanceSquaredSum(int x0, int y0, int x1, int y1) {
+        long[] table = squaredTable();
+        int ax = clampX(x0), ay = clampY(y0), bx = clampX(x1), by = clampY(y1);
+        if (bx <= ax || by <= ay) return 0;
+        return table[by * stride + bx] - table[ay * stride + bx] - table[by * stride + ax] + table[ay * stride + ax];
+    }
+
+    public int brightCount(int x0, int y0, int x1, int y1) {
+        return rectSum(brightCount, x0, y0, x1, y1);
+    }
+
+    public int gradientCount(int x0, int y0, int x1, int y1) {
+        return rectSum(gradientCount, x0, y0, x1, y1);
+    }
+
+    public double mean(Rectangle region) {
+        long area = clippedArea(region.x, region.y, region.x + region.width, region.y + region.height);
+        return area > 0 ? (double) luminanceSum(region.x, region.y, region.x + region.width, region.y + region.height) / area : 0;
+    }
+
+    public double variance(Rectangle region) {
+        int x1 = region.x + region.width, y1 = region.y + region.height;
+        long area = clippedArea(region.x, region.y, x1, y1);
+        if (area == 0) return 0;
+
+        double mean = (double) luminanceSum(region.x, region.y, x1, y1) / area;
+        double meanSquared = (double) luminanceSquaredSum(region.x, region.y, x1, y1) / area;
+        return Math.max(0, meanSquared - mean * mean);
+    }
+
+    // Fração de pixels claros na região (recortada aos limites da imagem)
+    public double brightRatio(Rectangle region) {
+        int x1 = region.x + region.width, y1 = region.y + region.height;
+        long area = clippedArea(region.x, region.y, x1, y1);
+        return area > 0 ? (double) brightCount(region.x, region.y, x1, y1) / area : 0;
+    }
+
+    // Fração de pares horizontais (x, x+1) com diferença acima do limiar de borda.
+    // Exclui a última coluna e a última linha da imagem, como a varredura original
+    public double edgeRatio(Rectangle region) {
+        int x1 = Math.min(region.x + region.width, width - 1);
+        int y1 = Math.min(region.y + region.height, height - 1);
+        long area = clippedArea(region.x, region.y, x1, y1);
+        return area > 0 ? (double) gradientCount(region.x, region.y, x1, y1) / area : 0;
+    }
+
+    private int rectSum(int[] table, int x0, int y0, int x1, int y1) {
+        int ax = clampX(x0), ay = clampY(y0), bx = clampX(x1), by = clampY(y1);
+        if (bx <= ax || by <= ay) return 0;
+        return table[by * stride + bx] - table[ay * stride + bx] - table[by * stride + ax] + table[ay * stride + ax];
+    }
+
+    private long clippedArea(int x0, int y0, int x1, int y1) {
+        int w = clampX(x1) - clampX(x0);
+        int h = clampY(y1) - clampY(y0);
+        return w > 0 && h > 0 ? (long) w * h : 0;
+    }
+
+    private long[] squaredTable() {
+        long[] table = luminanceSquaredSum;
+        if (table == null) {
+            synchronized (this) {
+                table = luminanceSquaredSum;
+                if (table == null) {
+                    table = new long[stride * (height + 1)];
+                    for (int y = 0; y < height; y++) {
+                        long acc = 0;
+                        int above = y * stride;
+                        int current = above + stride;
+                        for (int x = 0; x < width; x++) {
+                            int lum = luminance.get(x, y);
+                            acc += lum * lum;
+                            table[current + x + 1] = table[above + x + 1] + acc;
+                        }
+                    }
+                    luminanceSquaredSum = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    private int clampX(int x) {
+        return Math.max(0, Math.min(width, x));
+    }
+
+    private int clampY(int y) {
+        return Math.max(0, Math.min(height, y));
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.licenseplate.imaging;
+
+// Erosão e dilatação em tons de cinza com elemento estruturante retangular
+// (2 * radiusX + 1) x (2 * radiusY + 1), separável em uma passada horizontal e uma vertical.
+// Cada passada usa o algoritmo de van Herk/Gil-Werman: máximos (ou mínimos) acumulados
+// dentro de blocos do tamanho da janela, da esquerda para a direita e da direita para a
+// esquerda, dão o resultado com ~3 comparações por pixel independentemente do raio.
+// Fora da imagem vale o elemento neutro (0 na dilatação, 255 na erosão).
+// Em todas as operações src e dst podem ser a mesma imagem.
+public final class Morphology {
+
+    private Morphology() {}
+
+    public static void dilate(GrayImage src, GrayImage dst, int radiusX, int radiusY) {
+        apply(src, dst, radiusX, radiusY, true);
+    }
+
+    public static void erode(GrayImage src, GrayImage dst, int radiusX, int radiusY) {
+        apply(src, dst, radiusX, radiusY, false);
+    }
+
+    // Abertura: remove ruído e estruturas menores que o elemento
+    public static void open(GrayImage src, GrayImage dst, int radiusX, int radiusY) {
+        erode(src, dst, radiusX, radiusY);
+        dilate(dst, dst, radiusX, radiusY);
+    }
+
+    // Fechamento: preenche lacunas menores que o elemento (ex.: espaço entre caracteres)
+    public static void close(GrayImage src, GrayImage dst, int radiusX, int radiusY) {
+        dilate(src, dst, radiusX, radiusY);
+        erode(dst, dst, radiusX, radiusY);
+    }
+
+    private static void apply(GrayImage src, GrayImage dst, int radiusX, int radiusY, boolean max) {
+        int width = src.getWidth();
+        int height = src.getHeight();
+        if (src != dst) {
+            GrayOps.copy(src, dst);
+        }
+        if (width == 0 || height == 0) {
+            return;
+        }
+
+        int maxRadius = Math.max(radiusX, radiusY);
+        int maxLength = Math.max(width, height) + 2 * maxRadius + 2 * maxRadius + 1;
+        Scratch scratch = new Scratch(maxLength);
+
+        byte[] data = dst.getData();
+        int stride = dst.getStride();
+
+        if (radiusX > 0) {
+            for (int y = 0; y < height; y++) {
+                int row = y * stride;
+                for (int x = 0; x < width; x++) scratch.line[x] = data[row + x] & 0xFF;
+                filterLine(scratch, width, radiusX, max);
+                for (int x = 0; x < width; x++) data[row + x] = (byte) scratch.result[x];
+            }
+        }
+
+        if (radiusY > 0) {
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) scratch.line[y] = data[y * stride + x] & 0xFF;
+                filterLine(scratch, height, radiusY, max);
+                for (int y = 0; y < height; y++) data[y * stride + x] = (byte) scratch.result[y];
+            }
+        }
+    }
+
+    // Filtro de máximo/mínimo 1D com janela centrada de raio r sobre scratch.line[0, length)
+    private static void filterLine(Scratch scratch, int length, int radius, boolean max) {
+        int window = 2 * radius + 1;
+        int neutral = max ? 0 : 255;
+
+        // Linha estendida com r elementos neutros de cada lado, completada até múltiplo da janela
+        int padded = length + 2 * radius;
+        int blocks = (padded + window - 1) / window;
+        int total = blocks * window;
+        int[] f = scratch.padded;
+        int[] g = scratch.forward;
+        int[] h = scratch.backward;
+
+        for (int i = 0; i < radius; i++) f[i] = neutral;
+        System.arraycopy(scratch.line, 0, f, radius, length);
+        for (int i = radius + length; i < total; i++) f[i] = neutral;
+
+        for (int start = 0; start < total; start += window) {
+            int end = start + window - 1;
+
+            g[start] = f[start];
+            for (int i = start + 1; i <= end; i++) {
+                g[i] = max ? Math.max(g[i - 1], f[i]) : Math.min(g[i - 1], f[i]);
+            }
+
+            h[end] = f[end];
+            for (int i = end - 1; i >= start; i--) {
+                h[i] = max ? Math.max(h[i + 1], f[i]) : Math.min(h[i + 1], f[i]);
+            }
+        }
+
+        // Janela [x, x + window - 1] na linha estendida = [x - r, x + r] na original
+        int[] result = scratch.result;
+        for (int x = 0; x < length; x++) {
+            int a = h[x], b = g[x + window - 1];
+            result[x] = max ? Math.max(a, b) : Math.min(a, b);
+        }
+    }
+
+    // Buffers reaproveitados por todas as linhas e colunas de uma operação
+    private static final class Scratch {
+        final int[] line;
+        final int[] padded;
+        final int[] forward;
+        final int[] backward;
+        final int[] result;
+
+        Scratch(int length) {
+            this.line = new int[length];
+            this.padded = new int[length];
+            this.forward = new int[length];
+            this.backward = new int[length];
+            this.result = new int[length];
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.licenseplate.imaging;
+
+// Operadores de anonimização sobre RgbRegion, trabalhando direto nos ints empacotados.
+// Nenhum objeto por pixel: as somas por canal ficam em variáveis locais e as passadas de
+// blur usam um único buffer de linha. O alfa (quando existe) é preservado.
+public final class RgbOps {
+
+    private RgbOps() {}
+
+    // Raio do box blur que, aplicado em três passadas, aproxima a gaussiana de sigma dado
+    // (variância de n box blurs de largura w: n * (w² - 1) / 12)
+    public static int boxRadiusForSigma(double sigma) {
+        double width = Math.sqrt(4 * sigma * sigma + 1);
+        return Math.max(1, (int) Math.round((width - 1) / 2));
+    }
+
+    // Box blur separável em passes passadas (3 ≈ gaussiana), com somas corridas: custo por
+    // pixel independe do raio. Amostras fora da região repetem a borda, como o blur anterior
+    public static void boxBlur(RgbRegion region, BoxKernel kernel, int passes) {
+        int width = region.getWidth();
+        int height = region.getHeight();
+        if (width == 0 || height == 0) {
+            return;
+        }
+
+        int[] data = region.getData();
+        int offset = region.getOffset();
+        int stride = region.getStride();
+        int[] line = new int[Math.max(width, height)];
+
+        for (int pass = 0; pass < passes; pass++) {
+            for (int y = 0; y < height; y++) {
+                blurLine(data, offset + y * stride, 1, width, kernel, line);
+            }
+            for (int x = 0; x < width; x++) {
+                blurLine(data, offset + x, stride, height, kernel, line);
+            }
+        }
+    }
+
+    // Box blur 1D de uma linha (step 1) ou coluna (step = stride), via cópia para o buffer de linha
+    private static void blurLine(int[] data, int start, int step, int length, BoxKernel kernel, int[] line) {
+        for (int i = 0, p = start; i < length; i++, p += step) {
+            line[i] = data[p];
+        }
+
+        int radius = kernel.getRadius();
+        int[] divide = kernel.getDivideTable();
+        int last = length - 1;
+        int r = 0, g = 0, b = 0;
+
+        // Janela inicial centrada em 0, com a borda esquerda replicada
+        for (int k = -radius; k <= radius; k++) {
+            int rgb = line[Math.min(last, Math.max(0, k))];
+            r += (rgb >> 16) & 0xFF;
+            g += (rgb >> 8) & 0xFF;
+            b += rgb & 0xFF;
+        }
+
+        for (int i = 0, p = start; i < length; i++, p += step) {
+            data[p] = (line[i] & 0xFF000000) | (divide[r] << 16) | (divide[g] << 8) | divide[b];
+
+            int incoming = line[Math.min(last, i + radius + 1)];
+            int outgoing = line[Math.max(0, i - radius)];
+            r += ((incoming >> 16) & 0xFF) - ((outgoing >> 16) & 0xFF);
+            g += ((incoming >> 8) & 0xFF) - ((outgoing >> 8) & 0xFF);
+            b += (incoming & 0xFF) - (outgoing & 0xFF);
+        }
+    }
+
+    // Preenche a região com uma cor sólida (0xRRGGBB)
+    public static void fill(RgbRegion region, int rgb) {
+        int[] data = region.getData();
+        int offset = region.getOffset();
+        int stride = region.getStride();
+        for (int y = 0; y < region.getHeight(); y++) {
+            int row = offset + y * stride;
+            for (int x = 0; x < region.getWidth(); x++) {
+                data[row + x] = (data[row + x] & 0xFF000000) | (rgb & 0xFFFFFF);
+            }
+        }
+    }
+
+    // Cada bloco blockSize x blockSize (recortado na borda da região) recebe a cor média do bloco
+    public static void pixelate(RgbRegion region, int blockSize) {
+        int width = region.getWidth();
+        int height = region.getHeight();
+        if (blockSize <= 1 || width == 0 || height == 0) {
+            return;
+        }
+
+        int[] data = region.getData();
+        int offset = region.getOffset();
+        int stride = region.getStride();
+
+        for (int by = 0; by < height; by += blockSize) {
+            int endY = Math.min(height, by + blockSize);
+            for (int bx = 0; bx < width; bx += blockSize) {
+                int endX = Math.min(width, bx + blockSize);
+
+                long r = 0, g = 0, b = 0;
+                for (int y = by; y < endY; y++) {
+                    int row = offset + y * stride;
+                    for (int x = bx; x < endX; x++) {
+                        int rgb = data[row + x];
+                        r += (rgb >> 16) & 0xFF;
+                        g += (rgb >> 8) & 0xFF;
+                        b += rgb & 0xFF;
+                    }
+                }
+
+                int count = (endY - by) * (endX - bx);
+                int average = (int) (r / count) << 16 | (int) (g / count) << 8 | (int) (b / count);
+                for (int y = by; y < endY; y++) {
+                    int row = offset + y * stride;
+                    for (int x = bx; x < endX; x++) {
+                        data[row + x] = (data[row + x] & 0xFF000000) | average;
+                    }
+                }
+            }
+        }
+    }
+}
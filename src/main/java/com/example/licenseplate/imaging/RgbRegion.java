@@ -0,0 +1,73 @@
+package com.example.licenseplate.imaging;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+// Janela de pixels RGB empacotados (0xRRGGBB) sobre um retângulo de uma BufferedImage.
+// Em TYPE_INT_RGB/ARGB aponta direto para o DataBufferInt da imagem (sem cópia); nos demais
+// tipos copia só o retângulo para um int[] e commit() grava de volta. Em ambos os casos o
+// custo é proporcional à área do retângulo, não à da imagem.
+// O pixel (x, y) da região fica em data[offset + y * stride + x].
+public final class RgbRegion {
+
+    private final BufferedImage image;
+    private final Rectangle bounds;
+    private final int[] data;
+    private final int offset;
+    private final int stride;
+    private final boolean direct;
+
+    private RgbRegion(BufferedImage image, Rectangle bounds, int[] data, int offset, int stride, boolean direct) {
+        this.image = image;
+        this.bounds = bounds;
+        this.data = data;
+        this.offset = offset;
+        this.stride = stride;
+        this.direct = direct;
+    }
+
+    // Região recortada aos limites da imagem
+    public static RgbRegion of(BufferedImage image, Rectangle region) {
+        Rectangle bounds = region.intersection(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+        if (bounds.isEmpty()) {
+            bounds = new Rectangle(0, 0, 0, 0);
+        }
+
+        Raster raster = image.getRaster();
+        int type = image.getType();
+        if (raster.getDataBuffer() instanceof DataBufferInt && raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+                && (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)) {
+            SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) raster.getSampleModel();
+            DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+            int scanlineStride = model.getScanlineStride();
+            int base = buffer.getOffset()
+                    - raster.getSampleModelTranslateX()
+                    - raster.getSampleModelTranslateY() * scanlineStride;
+            return new RgbRegion(image, bounds, buffer.getData(), base + bounds.y * scanlineStride + bounds.x,
+                    scanlineStride, true);
+        }
+
+        int[] copy = new int[bounds.width * bounds.height];
+        if (copy.length > 0) {
+            image.getRGB(bounds.x, bounds.y, bounds.width, bounds.height, copy, 0, bounds.width);
+        }
+        return new RgbRegion(image, bounds, copy, 0, bounds.width, false);
+    }
+
+    public int getWidth() { return bounds.width; }
+    public int getHeight() { return bounds.height; }
+    public int[] getData() { return data; }
+    public int getOffset() { return offset; }
+    public int getStride() { return stride; }
+    public Rectangle getBounds() { return new Rectangle(bounds); }
+
+    // Grava a cópia de volta na imagem (nada a fazer quando a região aponta para o buffer original)
+    public void commit() {
+        if (!direct && data.length > 0) {
+            image.setRGB(bounds.x, bounds.y, bounds.width, bounds.height, data, 0, bounds.width);
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.licenseplate.service;
+
+import com.example.licenseplate.dto.BatchResult;
+import com.example.licenseplate.dto.ProcessingOptions;
+import com.example.licenseplate.dto.ProcessingResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+// Processamento em lote: um único batchId para N imagens, cada uma passando pelas quatro
+// etapas do pipeline (decodificação, detecção, OCR e codificação), com no máximo
+// batch.max-in-flight imagens em andamento por lote. Assim um lote grande não enche as filas
+// das etapas nem disputa as instâncias do Tesseract com os demais lotes de uma só vez. Item
+// rejeitado por fila cheia em qualquer etapa é reenviado com espera crescente (batch.retry.*)
+@Service
+public class BatchProcessingService {
+
+    // Mesmo limite por imagem aplicado ao upload individual
+    private static final long MAX_IMAGE_BYTES = 10 * 1024 * 1024;
+
+    @Autowired
+    private ImageProcessorService imageProcessorService;
+
+    @Autowired
+    private ResultStreamPublisher resultStreamPublisher;
+
+    @Autowired
+    private ProcessingResultStore resultStore;
+
+    @Value("${batch.max-images:500}")
+    private int maxImages;
+
+    @Value("${batch.max-in-flight:${image.processing.max-threads:5}}")
+    private int maxInFlight;
+
+    // Soma dos bytes extraídos de todos os zips de uma requisição. Sem isso um zip de poucos MB
+    // pode expandir para max-images x 10MB no heap antes de qualquer imagem ser processada
+    @Value("${batch.max-total-bytes:${spring.servlet.multipart.max-request-size:200MB}}")
+    private DataSize maxTotalBytes;
+
+    // Novas tentativas quando a fila do pipeline está cheia (backoff exponencial limitado)
+    @Value("${batch.retry.max-attempts:30}")
+    private int retryMaxAttempts;
+
+    @Value("${batch.retry.initial-delay-ms:100}")
+    private long retryInitialDelayMs;
+
+    @Value("${batch.retry.max-delay-ms:2000}")
+    private long retryMaxDelayMs;
+
+    @Value("${batch.max-retained:200}")
+    private int maxRetained;
+
+    @Value("${plate.cache.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    // Ordem de criação: ao exceder batch.max-retained o lote mais antigo é descartado
+    private final LinkedHashMap<String, BatchState> batches = new LinkedHashMap<>();
+
+    public int getMaxImages() {
+        return maxImages;
+    }
+
+    public String submit(List<byte[]> images, ProcessingOptions options) {
+        if (images.isEmpty()) {
+            throw new IllegalArgumentException("Lote sem imagens");
+        }
+        if (images.size() > maxImages) {
+            throw new IllegalArgumentException("Lote com " + images.size() + " imagens excede o máximo de " + maxImages);
+        }
+
+        String batchId = UUID.randomUUID().toString();
+        BatchState state = new BatchState(batchId, images, options);
+
+        synchronized (batches) {
+            batches.put(batchId, state);
+            Iterator<String> iterator = batches.keySet().iterator();
+            while (batches.size() > maxRetained && iterator.hasNext()) {
+                String eldest = iterator.next();
+                if (!eldest.equals(batchId)) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        System.out.println("[BATCH] Lote " + batchId + " com " + state.total + " imagens (até " + maxInFlight + " em paralelo)");
+
+        int lanes = Math.max(1, Math.min(maxInFlight, state.total));
+        for (int i = 0; i < lanes; i++) {
+            runLane(state);
+        }
+        return batchId;
+    }
+
+    public BatchResult getBatchResult(String batchId, boolean includeImages) {
+        BatchState state;
+        synchronized (batches) {
+            state = batches.get(batchId);
+        }
+        if (state == null) {
+            return null;
+        }
+
+        int completed = state.completed.get();
+        int failed = state.failed.get();
+        int pending = state.total - completed - failed;
+        int started = Math.min(state.nextIndex.get(), state.total);
+
+        List<ProcessingResult> results = new ArrayList<>(state.total);
+        for (int i = 0; i < state.total; i++) {
+            ProcessingResult result = state.results.get(i);
+            String processId = state.processId(i);
+
+            if (result == null) {
+                results.add(i < started ? ProcessingResult.processing(processId) : new ProcessingResult("QUEUED", processId));
+            } else if (includeImages) {
+                results.add(withStoredImage(result));
+            } else {
+                results.add(result);
+            }
+        }
+
+        BatchResult batchResult = new BatchResult(batchId, aggregateStatus(completed, failed, pending));
+        batchResult.setTotal(state.total);
+        batchResult.setCompleted(completed);
+        batchResult.setFailed(failed);
+        batchResult.setPending(pending);
+        long end = state.finishedAt > 0 ? state.finishedAt : System.currentTimeMillis();
+        batchResult.setElapsedTimeMs(end - state.createdAt);
+        batchResult.setResults(results);
+        return batchResult;
+    }
+
+    // Extrai as imagens (jpg, jpeg, png, bmp) de um zip, ignorando diretórios e outros arquivos.
+    // acceptedBytes: bytes já aceitos na mesma requisição (outros zips e imagens avulsas)
+    public List<byte[]> extractZipImages(InputStream input, long acceptedBytes) throws IOException {
+        List<byte[]> images = new ArrayList<>();
+        byte[] buffer = new byte[64 * 1024];
+        long budget = maxTotalBytes.toBytes();
+        long totalBytes = acceptedBytes;
+
+        try (ZipInputStream zip = new ZipInputStream(input)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory() || !isImageName(entry.getName())) {
+                    continue;
+                }
+                if (images.size() >= maxImages) {
+                    throw new IllegalArgumentException("Zip excede o máximo de " + maxImages + " imagens por lote");
+                }
+
+                // O tamanho declarado no zip não é confiável: o limite é aplicado durante a leitura
+                ByteArrayOutputStream out = new ByteArrayOutputStream(entry.getSize() > 0
+                        ? (int) Math.min(entry.getSize(), MAX_IMAGE_BYTES) : 256 * 1024);
+                int read;
+                while ((read = zip.read(buffer)) != -1) {
+                    if (out.size() + read > MAX_IMAGE_BYTES) {
+                        throw new IllegalArgumentException("Imagem " + entry.getName() + " no zip excede 10MB");
+                    }
+                    totalBytes += read;
+                    if (totalBytes > budget) {
+                        throw new IllegalArgumentException("Zip expandido excede " + maxTotalBytes.toMegabytes() + "MB por lote");
+                    }
+                    out.write(buffer, 0, read);
+                }
+
+                if (out.size() > 0) {
+                    images.add(out.toByteArray());
+                }
+            }
+        }
+
+        System.out.println("[BATCH] Zip expandido: " + images.size() + " imagens");
+        return images;
+    }
+
+    // Remove lotes finalizados há mais que o TTL dos resultados
+    @Scheduled(fixedDelayString = "${plate.cache.cleanup-interval:600000}",
+            initialDelayString = "${plate.cache.cleanup-interval:600000}")
+    public void evictExpired() {
+        long limit = System.currentTimeMillis() - ttlMinutes * 60_000L;
+        int removed = 0;
+
+        synchronized (batches) {
+            Iterator<BatchState> iterator = batches.values().iterator();
+            while (iterator.hasNext()) {
+                BatchState state = iterator.next();
+                if (state.finishedAt > 0 && state.finishedAt < limit) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        }
+
+        if (removed > 0) {
+            System.out.println("[BATCH] Limpeza: " + removed + " lote(s) expirado(s)");
+        }
+    }
+
+    // Cada "pista" processa uma imagem por vez e emenda a próxima quando a atual termina.
+    // Futures que já voltam concluídos (cache de detecção, caller-runs) seguem no laço em
+    // vez de encadear callbacks, evitando recursão profunda em lotes grandes
+    private void runLane(BatchState state) {
+        while (true) {
+            int index = state.nextIndex.getAndIncrement();
+            if (index >= state.total) {
+                return;
+            }
+
+            byte[] imageData = state.images[index];
+            state.images[index] = null;
+
+            if (!submitItem(state, index, imageData, 0)) {
+                return;
+            }
+        }
+    }
+
+    // true quando o item já terminou e a pista segue no laço; false quando a pista continua
+    // depois (callback do future ou nova tentativa agendada)
+    private boolean submitItem(BatchState state, int index, byte[] imageData, int attempt) {
+        String processId = state.processId(index);
+
+        CompletableFuture<ProcessingResult> future;
+        try {
+            future = imageProcessorService.processImageAsync(processId, imageData, state.options);
+        } catch (RejectedExecutionException e) {
+            return retryOrFail(state, index, imageData, attempt);
+        } catch (RuntimeException e) {
+            System.err.println("[BATCH] Item " + processId + " rejeitado: " + e.getMessage());
+            finishItem(state, index, ProcessingResult.error(processId, "Processamento rejeitado: " + e.getMessage()));
+            return true;
+        }
+
+        if (future.isDone()) {
+            ProcessingResult result = future.getNow(null);
+            if (isRejected(result)) {
+                return retryOrFail(state, index, imageData, attempt);
+            }
+            finishItem(state, index, result);
+            return true;
+        }
+
+        future.whenComplete((result, error) -> {
+            if (error == null && isRejected(result)) {
+                if (retryOrFail(state, index, imageData, attempt)) {
+                    runLane(state);
+                }
+                return;
+            }
+            finishItem(state, index, error == null ? result
+                    : ProcessingResult.error(processId, "Erro interno: " + error.getMessage()));
+            runLane(state);
+        });
+        return false;
+    }
+
+    // Fila de alguma etapa cheia é momentânea: o mesmo item é tentado de novo após um intervalo
+    // crescente, em vez de falhar este e todos os seguintes da pista. Mesmo contrato de submitItem
+    private boolean retryOrFail(BatchState state, int index, byte[] imageData, int attempt) {
+        String processId = state.processId(index);
+        if (attempt < retryMaxAttempts) {
+            long delayMs = Math.min(retryMaxDelayMs, retryInitialDelayMs << Math.min(attempt, 20));
+            System.out.println("[BATCH] Fila cheia para " + processId + ", nova tentativa em " + delayMs + "ms");
+            CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS).execute(() -> {
+                if (submitItem(state, index, imageData, attempt + 1)) {
+                    runLane(state);
+                }
+            });
+            return false;
+        }
+        System.err.println("[BATCH] Item " + processId + " rejeitado após " + attempt + " tentativas: fila cheia");
+        finishItem(state, index, ProcessingResult.error(processId, "Capacidade de processamento esgotada, tente novamente"));
+        return true;
+    }
+
+    private static boolean isRejected(ProcessingResult result) {
+        return result != null && "REJECTED".equals(result.getStatus());
+    }
+
+    private void finishItem(BatchState state, int index, ProcessingResult result) {
+        if (result == null) {
+            result = ProcessingResult.error(state.processId(index), "Processamento sem resultado");
+        }
+        // O lote guarda só os metadados: a imagem fica no ProcessingResultStore (limitado em
+        // bytes) e continua disponível em /image/{processId}
+        state.results.set(index, result.withoutImage());
+        resultStreamPublisher.publishBatchItem(state.batchId, result);
+
+        if ("COMPLETED".equals(result.getStatus())) {
+            state.completed.incrementAndGet();
+        } else {
+            state.failed.incrementAndGet();
+        }
+
+        if (state.finished.incrementAndGet() == state.total) {
+            state.finishedAt = System.currentTimeMillis();
+            System.out.println("[BATCH] Lote " + state.batchId + " finalizado em " + (state.finishedAt - state.createdAt) +
+                    "ms - " + state.completed.get() + " concluída(s), " + state.failed.get() + " com erro");
+            resultStreamPublisher.publishBatchCompleted(getBatchResult(state.batchId, false));
+        }
+    }
+
+    // Imagem do item lida do ProcessingResultStore; se já foi descartada de lá, volta sem imagem
+    private ProcessingResult withStoredImage(ProcessingResult result) {
+        ProcessingResult stored = resultStore.get(result.getProcessId());
+        if (stored == null || stored.getProcessedImage() == null) {
+            return result;
+        }
+        ProcessingResult copy = result.withoutImage();
+        copy.setProcessedImage(stored.getProcessedImage());
+        return copy;
+    }
+
+    private static String aggregateStatus(int completed, int failed, int pending) {
+        if (pending > 0) return "PROCESSING";
+        if (failed == 0) return "COMPLETED";
+        return completed == 0 ? "ERROR" : "PARTIAL";
+    }
+
+    private static boolean isImageName(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".jpg") || lower.endsWith(".jpeg") || lower.endsWith(".png") || lower.endsWith(".bmp");
+    }
+
+    private static class BatchState {
+        final String batchId;
+        final long createdAt = System.currentTimeMillis();
+        final int total;
+        final ProcessingOptions options;
+
+        // Bytes de cada imagem, liberados assim que o item é enviado ao executor
+        final byte[][] images;
+        final AtomicReferenceArray<ProcessingResult> results;
+        final AtomicInteger nextIndex = new AtomicInteger();
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger finished = new AtomicInteger();
+        volatile long finishedAt;
+
+        BatchState(String batchId, List<byte[]> images, ProcessingOptions options) {
+            this.batchId = batchId;
+            this.total = images.size();
+            this.options = options;
+            this.images = images.toArray(new byte[0][]);
+            this.results = new AtomicReferenceArray<>(total);
+        }
+
+        String processId(int index) {
+            return batchId + "-" + index;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.licenseplate.service;
+
+import com.example.licenseplate.dto.ProcessingResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cache endereçado por conteúdo: câmeras fixas reenviam o mesmo frame várias vezes, então
+// o SHA-256 dos bytes enviados identifica uploads idênticos e devolve o resultado anterior
+// (placa, coordenadas e imagem processada) sem passar por detecção e OCR
+@Component
+public class DetectionCache {
+
+    // Custo fixo aproximado de uma entrada sem imagem (chave, resultado e coordenadas)
+    private static final long BASE_ENTRY_BYTES = 512;
+
+    @Value("${plate.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${plate.cache.detection.max-entries:256}")
+    private int maxEntries;
+
+    @Value("${plate.cache.detection.max-bytes:67108864}")
+    private long maxBytes;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Chave do cache para os bytes enviados, ou null quando o cache está desabilitado
+    public String keyFor(byte[] imageData) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(imageData));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 é obrigatório em toda JVM; sem ele apenas não há cache
+            return null;
+        }
+    }
+
+    public synchronized ProcessingResult get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.result;
+    }
+
+    // Só resultados concluídos são reaproveitáveis; erros devem ser reprocessados
+    public void put(String key, ProcessingResult result) {
+        if (key == null || result == null || !"COMPLETED".equals(result.getStatus())) {
+            return;
+        }
+
+        Entry entry = new Entry(result, estimateSize(result));
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                currentBytes -= previous.sizeBytes;
+            }
+            currentBytes += entry.sizeBytes;
+
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || currentBytes > maxBytes) && iterator.hasNext()) {
+                Map.Entry<String, Entry> eldest = iterator.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                iterator.remove();
+                currentBytes -= eldest.getValue().sizeBytes;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("entries", entries.size());
+            stats.put("bytes", currentBytes);
+        }
+        long hitCount = hits.get();
+        long missCount = misses.get();
+
+        stats.put("enabled", enabled);
+        stats.put("maxEntries", maxEntries);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0.0);
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private long estimateSize(ProcessingResult result) {
+        long size = BASE_ENTRY_BYTES;
+        if (result.getProcessedImage() != null) {
+            size += result.getProcessedImage().length;
+        }
+        return size;
+    }
+
+    private static class Entry {
+        final ProcessingResult result;
+        final long sizeBytes;
+
+        Entry(ProcessingResult result, long sizeBytes) {
+            this.result = result;
+            this.sizeBytes = sizeBytes;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.licenseplate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+// Decodificação dos uploads. As dimensões vêm do cabeçalho antes de decodificar os pixels:
+// imagens acima do limite são lidas já reduzidas com ImageReadParam.setSourceSubsampling
+// (o reader descarta as linhas e colunas puladas e só aloca o raster reduzido), restando no
+// máximo um redimensionamento bicúbico pequeno até image.max.width x image.max.height.
+// Um upload de 24MP deixa de ocupar ~96MB de raster ARGB antes da redução
+@Component
+public class ImageDecoder {
+
+    // Acima disso (em qualquer dimensão) a imagem é reduzida na decodificação
+    @Value("${image.decode.resize-threshold:4000}")
+    private int resizeThreshold;
+
+    @Value("${image.max.width:2000}")
+    private int maxWidth;
+
+    @Value("${image.max.height:2000}")
+    private int maxHeight;
+
+    // null quando nenhum reader reconhece o formato (mesmo contrato de ImageIO.read)
+    public DecodedImage decode(byte[] data) throws IOException {
+        // Stream em memória: ImageIO.createImageInputStream usaria arquivo temporário como cache
+        try (ImageInputStream input = new MemoryCacheImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = subsamplingFor(sourceWidth, sourceHeight);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+
+                BufferedImage image = reader.read(0, param);
+                if (subsampling > 1) {
+                    System.out.println("[IMAGE-DECODER] Imagem " + sourceWidth + "x" + sourceHeight +
+                            " decodificada com subamostragem 1/" + subsampling + ": " + image.getWidth() + "x" + image.getHeight());
+                }
+
+                if (isOversized(sourceWidth, sourceHeight) && (image.getWidth() > maxWidth || image.getHeight() > maxHeight)) {
+                    image = resizeImageIntelligent(image, maxWidth, maxHeight);
+                }
+
+                return new DecodedImage(image, reader.getFormatName(), sourceWidth, sourceHeight);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Maior fator inteiro que ainda deixa a imagem >= image.max.* (o restante fica para o
+    // redimensionamento bicúbico). Imagens dentro do limite são decodificadas inteiras
+    private int subsamplingFor(int width, int height) {
+        if (!isOversized(width, height)) {
+            return 1;
+        }
+        double scale = Math.max((double) width / maxWidth, (double) height / maxHeight);
+        return Math.max(1, (int) Math.floor(scale));
+    }
+
+    private boolean isOversized(int width, int height) {
+        return width > resizeThreshold || height > resizeThreshold;
+    }
+
+    private BufferedImage resizeImageIntelligent(BufferedImage image, int maxWidth, int maxHeight) {
+        int originalWidth = image.getWidth();
+        int originalHeight = image.getHeight();
+
+        // Calcular nova dimensão mantendo proporção
+        double scaleW = (double) maxWidth / originalWidth;
+        double scaleH = (double) maxHeight / originalHeight;
+        double scale = Math.min(scaleW, scaleH);
+
+        int newWidth = (int) (originalWidth * scale);
+        int newHeight = (int) (originalHeight * scale);
+
+        BufferedImage resized = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = resized.createGraphics();
+
+        // Configurações de alta qualidade
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        g2d.drawImage(image, 0, 0, newWidth, newHeight, null);
+        g2d.dispose();
+
+        System.out.println("[IMAGE-DECODER] Imagem redimensionada de " + originalWidth + "x" + originalHeight +
+                " para " + newWidth + "x" + newHeight);
+
+        return resized;
+    }
+
+    // Imagem decodificada e dados do arquivo de origem
+    public static class DecodedImage {
+        private final BufferedImage image;
+        private final String formatName;
+        private final int sourceWidth;
+        private final int sourceHeight;
+
+        public DecodedImage(BufferedImage image, String formatName, int sourceWidth, int sourceHeight) {
+            this.image = image;
+            this.formatName = formatName;
+            this.sourceWidth = sourceWidth;
+            this.sourceHeight = sourceHeight;
+        }
+
+        public BufferedImage getImage() { return image; }
+        public String getFormatName() { return formatName; }
+        public int getSourceWidth() { return sourceWidth; }
+        public int getSourceHeight() { return sourceHeight; }
+
+        // A imagem processada tem outra resolução que a do arquivo enviado
+        public boolean isResized() {
+            return image.getWidth() != sourceWidth || image.getHeight() != sourceHeight;
+        }
+    }
+}
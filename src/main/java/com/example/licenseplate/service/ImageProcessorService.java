@@ -1,24 +1,26 @@
 package com.example.licenseplate.service;
 
+import com.example.licenseplate.anonymization.AnonymizationRegistry;
+import com.example.licenseplate.anonymization.AnonymizationStrategy;
 import com.example.licenseplate.service.ImageSaveService;
+import com.example.licenseplate.dto.ProcessingOptions;
 import com.example.licenseplate.dto.ProcessingResult;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.imageio.ImageIO;
-import javax.imageio.ImageWriteParam;
-import javax.imageio.ImageWriter;
-import javax.imageio.stream.ImageOutputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Base64;
-import java.util.Iterator;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class ImageProcessorService {
@@ -29,103 +31,282 @@ public class ImageProcessorService {
     @Autowired
     private ImageSaveService imageSaveService;
 
-    private final ConcurrentHashMap<String, ProcessingResult> processingCache = new ConcurrentHashMap<>();
+    @Autowired
+    private ProcessingResultStore resultStore;
+
+    @Autowired
+    private DetectionCache detectionCache;
 
-    // Configurações otimizadas para processamento
-    private static final float COMPRESSION_QUALITY = 0.85f;
-    private static final int BLUR_INTENSITY = 12;
-    private static final int PIXELATION_SIZE = 8;
+    @Autowired
+    private ResultStreamPublisher resultStreamPublisher;
+
+    @Autowired
+    private AnonymizationRegistry anonymizationRegistry;
 
-    // Timeout para processamento (30 segundos)
-    private static final long PROCESSING_TIMEOUT_MS = 30000;
+    @Autowired
+    private ImageDecoder imageDecoder;
+
+    @Autowired
+    private JpegEncoder jpegEncoder;
+
+    @Autowired
+    private JpegPassThrough jpegPassThrough;
+
+    // Borda e texto "PRIVACIDADE" sobre a região anonimizada
+    @Value("${anonymization.indicator.enabled:true}")
+    private boolean privacyIndicatorEnabled;
+
+    // Timeout padrão do processamento; requisições síncronas podem informar um prazo menor
+    @Value("${image.processing.timeout-ms:30000}")
+    private long processingTimeoutMs;
+
+    // Prazos dos processamentos em andamento, para cancelamento via DELETE /clear/{id}
+    private final Map<String, ProcessingDeadline> inFlight = new ConcurrentHashMap<>();
+
+    // Etapas do pipeline, cada uma em um executor próprio (ver AsyncConfig)
+    @Autowired
+    @Qualifier("decodeExecutor")
+    private Executor decodeExecutor;
+
+    @Autowired
+    @Qualifier("detectExecutor")
+    private Executor detectExecutor;
+
+    @Autowired
+    @Qualifier("ocrExecutor")
+    private Executor ocrExecutor;
+
+    @Autowired
+    @Qualifier("encodeExecutor")
+    private Executor encodeExecutor;
+
+    // I/O de disco (virtual threads quando spring.threads.virtual.enabled=true)
+    @Autowired
+    @Qualifier("ioExecutor")
+    private Executor ioExecutor;
 
-    @Async
     public CompletableFuture<ProcessingResult> processImageAsync(String processId, byte[] imageData) {
-        long startTime = System.currentTimeMillis();
+        return processImageAsync(processId, imageData, ProcessingOptions.defaults());
+    }
+
+    // Enfileira a imagem no pipeline e retorna imediatamente. Com a fila de decodificação
+    // cheia a RejectedExecutionException sobe para o chamador (HTTP 429)
+    public CompletableFuture<ProcessingResult> processImageAsync(String processId, byte[] imageData,
+                                                                 ProcessingOptions options) {
+        // Status inicial PROCESSING no cache
+        ProcessingResult processingStatus = ProcessingResult.processing(processId);
+        resultStore.put(processId, processingStatus);
+        System.out.println("[IMAGE-PROCESSOR] Status PROCESSING salvo no cache para " + processId);
+
+        ProcessingDeadline deadline = deadlineFor(options);
+        CompletableFuture<ProcessingResult> pipeline;
+        try {
+            pipeline = startPipeline(processId, imageData, options, deadline);
+        } catch (RejectedExecutionException e) {
+            resultStore.remove(processId);
+            throw e;
+        }
+
+        return pipeline.thenApply(result -> {
+            // Cancelado via DELETE /clear/{id}: a entrada foi removida e não deve voltar. Quem
+            // assinou o stream depois do cancelamento ainda recebe o evento final
+            if (deadline.isCancelled()) {
+                System.out.println("[IMAGE-PROCESSOR] Processamento " + processId + " cancelado, resultado descartado");
+                resultStreamPublisher.publish(ProcessingResult.error(processId, "Processamento cancelado"));
+                return result;
+            }
+
+            // Salvar resultado final no cache e avisar quem acompanha via streaming
+            resultStore.put(processId, result);
+            resultStreamPublisher.publish(result);
+            return result;
+        });
+    }
+
+    // Processamento síncrono: passa pelos mesmos executores (e limites) do fluxo assíncrono e
+    // devolve o resultado direto, sem passar pelo store de resultados. Rejeição em qualquer
+    // etapa sobe como RejectedExecutionException (429), como a rejeição na decodificação
+    public ProcessingResult processImageSync(String processId, byte[] imageData, ProcessingOptions options) {
+        ProcessingResult result = startPipeline(processId, imageData, options, deadlineFor(options)).join();
+        if ("REJECTED".equals(result.getStatus())) {
+            throw new RejectedExecutionException(result.getMessage());
+        }
+        return result;
+    }
+
+    private ProcessingDeadline deadlineFor(ProcessingOptions options) {
+        long timeoutMs = options.getTimeoutMs() != null ? options.getTimeoutMs() : processingTimeoutMs;
+        return ProcessingDeadline.after(timeoutMs);
+    }
+
+    private CompletableFuture<ProcessingResult> startPipeline(String processId, byte[] imageData, ProcessingOptions options,
+                                                              ProcessingDeadline deadline) {
+        PipelineContext context = new PipelineContext(processId, imageData, options, deadline);
+        inFlight.put(processId, context.deadline);
         System.out.println("[IMAGE-PROCESSOR] Iniciando processamento inteligente para ID: " + processId);
         System.out.println("[IMAGE-PROCESSOR] Tamanho da imagem: " + imageData.length + " bytes");
 
         try {
-            // Status inicial PROCESSING no cache
-            ProcessingResult processingStatus = ProcessingResult.processing(processId);
-            processingCache.put(processId, processingStatus);
-            System.out.println("[IMAGE-PROCESSOR] Status PROCESSING salvo no cache para " + processId);
-
-            // Validação e carregamento da imagem
-            BufferedImage originalImage = validateAndLoadImage(imageData);
-            if (originalImage == null) {
-                ProcessingResult errorResult = ProcessingResult.error(processId, "Imagem inválida ou corrompida");
-                processingCache.put(processId, errorResult);
-                return CompletableFuture.completedFuture(errorResult);
+            return CompletableFuture.supplyAsync(() -> decodeStage(context), decodeExecutor)
+                    .thenApplyAsync(this::detectStage, detectExecutor)
+                    .thenApplyAsync(this::ocrStage, ocrExecutor)
+                    .thenApplyAsync(this::encodeStage, encodeExecutor)
+                    .handle((ignored, error) -> finishPipeline(context, error));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(processId, context.deadline);
+            throw e;
+        }
+    }
+
+    // Etapa 1: cache de detecção, decodificação e validação
+    private PipelineContext decodeStage(PipelineContext context) {
+        // Frame idêntico a um já processado: reaproveita o resultado sem detecção nem OCR
+        context.cacheKey = context.options.isBypassCache() ? null : detectionCache.keyFor(context.imageData);
+        if (context.cacheKey != null && context.options.getRoi() != null) {
+            // Mesmo frame com outra ROI pode ter outro resultado
+            context.cacheKey += "|" + context.options.getRoi().getSpec();
+        }
+        if (context.cacheKey != null) {
+            // A imagem anonimizada depende da estratégia
+            context.cacheKey += "|" + anonymizationFor(context.options).getName();
+        }
+        if (context.cacheKey != null) {
+            ProcessingResult cached = detectionCache.get(context.cacheKey);
+            if (cached != null) {
+                ProcessingResult result = cached.copyFor(context.processId);
+                if (!context.options.isIncludeImage()) {
+                    result.setProcessedImage(null);
+                }
+                result.setProcessingTimeMs(context.elapsedMs());
+                System.out.println("[IMAGE-PROCESSOR] Resultado reaproveitado do cache de detecção para " + context.processId);
+                context.result = result;
+                return context;
             }
+        }
 
-            System.out.println("[IMAGE-PROCESSOR] Imagem válida: " + originalImage.getWidth() + "x" + originalImage.getHeight());
+        // Validação e carregamento da imagem
+        ImageDecoder.DecodedImage decoded = validateAndLoadImage(context.imageData);
+        if (decoded == null) {
+            context.result = ProcessingResult.error(context.processId, "Imagem inválida ou corrompida");
+            return context;
+        }
 
-            // Salvar imagem original se habilitado
-            saveOriginalImageIfEnabled(processId, imageData);
+        BufferedImage originalImage = decoded.getImage();
+        System.out.println("[IMAGE-PROCESSOR] Imagem válida: " + originalImage.getWidth() + "x" + originalImage.getHeight());
 
-            // Detecção inteligente de placa com timeout
-            System.out.println("[IMAGE-PROCESSOR] Iniciando detecção inteligente...");
-            LicensePlateDetector.PlateDetectionResult detection = performDetectionWithTimeout(imageData, startTime);
+        // Salvar imagem original se habilitado
+        saveOriginalImageIfEnabled(context.processId, context.imageData);
 
-            ProcessingResult result = processDetectionResult(processId, originalImage, detection);
+        context.decoded = decoded;
+        context.image = originalImage;
+        return context;
+    }
 
-            long processingTime = System.currentTimeMillis() - startTime;
-            result.setProcessingTimeMs(processingTime);
+    // Etapa 2: geração e pontuação de candidatos
+    private PipelineContext detectStage(PipelineContext context) {
+        if (context.result != null) {
+            return context;
+        }
 
-            // Salvar resultado final no cache
-            processingCache.put(processId, result);
-            System.out.println("[IMAGE-PROCESSOR] Processamento concluído em " + processingTime + "ms - Status: " + result.getStatus());
+        if (context.deadline.isExpired()) {
+            System.err.println("[IMAGE-PROCESSOR] Timeout antes da detecção");
+            context.detection = new LicensePlateDetector.PlateDetectionResult(false, null, null, null);
+            return context;
+        }
 
-            return CompletableFuture.completedFuture(result);
+        System.out.println("[IMAGE-PROCESSOR] Iniciando detecção inteligente...");
+        context.candidates = plateDetector.findCandidates(context.image, context.options.getRoi(), context.deadline);
+        return context;
+    }
 
-        } catch (Exception e) {
-            System.err.println("[IMAGE-PROCESSOR] ERRO no processamento " + processId + ": " + e.getMessage());
-            e.printStackTrace();
+    // Etapa 3: OCR dos candidatos (limitada pelo TesseractPool)
+    private PipelineContext ocrStage(PipelineContext context) {
+        if (context.result != null || context.detection != null) {
+            return context;
+        }
 
-            ProcessingResult errorResult = ProcessingResult.error(processId, "Erro interno: " + e.getMessage());
-            processingCache.put(processId, errorResult);
-            return CompletableFuture.completedFuture(errorResult);
+        if (context.deadline.isExpired()) {
+            System.err.println("[IMAGE-PROCESSOR] Timeout antes do OCR");
+            context.detection = new LicensePlateDetector.PlateDetectionResult(false, null, null, null);
+        } else {
+            context.detection = plateDetector.recognize(context.candidates, context.deadline);
         }
+        context.candidates = null;
+        return context;
     }
 
-    private LicensePlateDetector.PlateDetectionResult performDetectionWithTimeout(byte[] imageData, long startTime) {
+    // Etapa 4: blur, codificação JPEG e gravação em disco
+    private PipelineContext encodeStage(PipelineContext context) {
+        if (context.result != null) {
+            return context;
+        }
+
+        // Cancelado: ninguém vai consultar o resultado, então não anonimiza, não codifica nem grava em disco
+        if (context.deadline.isCancelled()) {
+            context.result = ProcessingResult.error(context.processId, "Processamento cancelado");
+            return context;
+        }
+
         try {
-            // Verificar timeout antes de iniciar
-            if (System.currentTimeMillis() - startTime > PROCESSING_TIMEOUT_MS) {
-                System.err.println("[IMAGE-PROCESSOR] Timeout antes da detecção");
-                return new LicensePlateDetector.PlateDetectionResult(false, null, null, null);
+            ProcessingResult result = processDetectionResult(context);
+            result.setProcessingTimeMs(context.elapsedMs());
+
+            // Prazo esgotado durante detecção/OCR: devolve o melhor resultado obtido, sinalizado
+            // como parcial e fora do cache (com mais tempo o mesmo frame pode ter outro resultado)
+            boolean partial = context.deadline.isExpired();
+            if (partial) {
+                result.setMessage(context.deadline.isCancelled()
+                        ? "Processamento cancelado, resultado parcial"
+                        : "Tempo limite de " + context.deadline.getTimeoutMs() + "ms atingido, resultado parcial");
             }
 
-            return plateDetector.detectPlate(imageData);
+            // Só resultados com imagem servem para o cache (o fluxo assíncrono sempre precisa dela)
+            if (context.options.isIncludeImage() && !partial) {
+                detectionCache.put(context.cacheKey, result);
+            }
+            context.result = result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return context;
+    }
 
-        } catch (Exception e) {
-            System.err.println("[IMAGE-PROCESSOR] Erro na detecção: " + e.getMessage());
-            return new LicensePlateDetector.PlateDetectionResult(false, null, null, null);
+    private ProcessingResult finishPipeline(PipelineContext context, Throwable error) {
+        inFlight.remove(context.processId, context.deadline);
+
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+
+            if (cause instanceof RejectedExecutionException) {
+                System.err.println("[IMAGE-PROCESSOR] Etapa rejeitada para " + context.processId + ": fila cheia");
+                return ProcessingResult.rejected(context.processId, "Capacidade de processamento esgotada, tente novamente");
+            }
+
+            System.err.println("[IMAGE-PROCESSOR] ERRO no processamento " + context.processId + ": " + cause.getMessage());
+            cause.printStackTrace();
+            return ProcessingResult.error(context.processId, "Erro interno: " + cause.getMessage());
         }
+
+        System.out.println("[IMAGE-PROCESSOR] Processamento concluído em " + context.elapsedMs() + "ms - Status: " + context.result.getStatus());
+        return context.result;
     }
 
-    private BufferedImage validateAndLoadImage(byte[] imageData) {
+    private ImageDecoder.DecodedImage validateAndLoadImage(byte[] imageData) {
         try {
-            BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageData));
-            if (image == null) {
+            ImageDecoder.DecodedImage decoded = imageDecoder.decode(imageData);
+            if (decoded == null) {
                 System.err.println("[IMAGE-PROCESSOR] Erro: Imagem não pôde ser decodificada");
                 return null;
             }
 
             // Validações básicas
-            if (image.getWidth() < 100 || image.getHeight() < 100) {
+            if (decoded.getSourceWidth() < 100 || decoded.getSourceHeight() < 100) {
                 System.err.println("[IMAGE-PROCESSOR] Erro: Imagem muito pequena (" +
-                        image.getWidth() + "x" + image.getHeight() + ")");
+                        decoded.getSourceWidth() + "x" + decoded.getSourceHeight() + ")");
                 return null;
             }
 
-            if (image.getWidth() > 4000 || image.getHeight() > 4000) {
-                System.out.println("[IMAGE-PROCESSOR] Imagem muito grande, redimensionando...");
-                return resizeImageIntelligent(image, 2000, 2000);
-            }
-
-            return image;
+            return decoded;
 
         } catch (Exception e) {
             System.err.println("[IMAGE-PROCESSOR] Erro ao validar imagem: " + e.getMessage());
@@ -133,72 +314,52 @@ public class ImageProcessorService {
         }
     }
 
-    private BufferedImage resizeImageIntelligent(BufferedImage image, int maxWidth, int maxHeight) {
-        int originalWidth = image.getWidth();
-        int originalHeight = image.getHeight();
-
-        // Calcular nova dimensão mantendo proporção
-        double scaleW = (double) maxWidth / originalWidth;
-        double scaleH = (double) maxHeight / originalHeight;
-        double scale = Math.min(scaleW, scaleH);
-
-        int newWidth = (int) (originalWidth * scale);
-        int newHeight = (int) (originalHeight * scale);
-
-        BufferedImage resized = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g2d = resized.createGraphics();
-
-        // Configurações de alta qualidade
-        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        g2d.drawImage(image, 0, 0, newWidth, newHeight, null);
-        g2d.dispose();
-
-        System.out.println("[IMAGE-PROCESSOR] Imagem redimensionada de " + originalWidth + "x" + originalHeight +
-                " para " + newWidth + "x" + newHeight);
-
-        return resized;
-    }
-
+    // Gravação em disco no ioExecutor para não ocupar as threads de CPU do pipeline
     private void saveOriginalImageIfEnabled(String processId, byte[] imageData) {
-        try {
-            if (imageSaveService != null && imageSaveService.isSaveEnabled()) {
+        if (imageSaveService == null || !imageSaveService.isSaveEnabled()) {
+            return;
+        }
+
+        ioExecutor.execute(() -> {
+            try {
                 String originalPath = imageSaveService.saveOriginalImage(processId, imageData);
                 if (originalPath != null) {
                     System.out.println("[IMAGE-PROCESSOR] Imagem original salva: " + originalPath);
                 }
+            } catch (Exception e) {
+                System.err.println("[IMAGE-PROCESSOR] Erro ao salvar imagem original: " + e.getMessage());
             }
-        } catch (Exception e) {
-            System.err.println("[IMAGE-PROCESSOR] Erro ao salvar imagem original: " + e.getMessage());
-        }
+        });
     }
 
-    private ProcessingResult processDetectionResult(String processId, BufferedImage originalImage,
-                                                    LicensePlateDetector.PlateDetectionResult detection) throws IOException {
-
-        if (detection.isFound()) {
-            return processWithPlateDetected(processId, originalImage, detection);
+    private ProcessingResult processDetectionResult(PipelineContext context) throws IOException {
+        if (context.detection.isFound()) {
+            return processWithPlateDetected(context.processId, context.image, context.detection, context.options);
         } else {
-            return processWithoutPlate(processId, originalImage);
+            return processWithoutPlate(context.processId, context.imageData, context.decoded,
+                    context.options.isIncludeImage());
         }
     }
 
     private ProcessingResult processWithPlateDetected(String processId, BufferedImage originalImage,
-                                                      LicensePlateDetector.PlateDetectionResult detection) throws IOException {
+                                                      LicensePlateDetector.PlateDetectionResult detection,
+                                                      ProcessingOptions options) throws IOException {
 
         System.out.println("[IMAGE-PROCESSOR] Placa detectada: " + detection.getPlateText() + " (" + detection.getFormat() + ")");
         System.out.println("[IMAGE-PROCESSOR] Coordenadas: " + detection.getCoordinates());
 
-        // Aplicar blur inteligente e comprimir
-        byte[] processedImageBytes = applyIntelligentBlurAndCompress(originalImage, detection.getCoordinates());
-        String base64Image = Base64.getEncoder().encodeToString(processedImageBytes);
+        byte[] processedImageBytes = null;
+        if (options.isIncludeImage()) {
+            // Anonimizar a placa e comprimir
+            AnonymizationStrategy strategy = anonymizationFor(options);
+            processedImageBytes = applyIntelligentBlurAndCompress(originalImage, detection.getCoordinates(), strategy);
 
-        System.out.println("[IMAGE-PROCESSOR] Blur aplicado. Tamanho final: " + processedImageBytes.length + " bytes");
+            System.out.println("[IMAGE-PROCESSOR] Anonimização " + strategy.getName() + " aplicada. Tamanho final: " +
+                    processedImageBytes.length + " bytes");
 
-        // Salvar imagem processada
-        saveProcessedImageIfEnabled(processId, base64Image, detection.getPlateText());
+            // Salvar imagem processada
+            saveProcessedImageIfEnabled(processId, processedImageBytes, detection.getPlateText());
+        }
 
         // Criar coordenadas do resultado
         ProcessingResult.PlateCoordinates coords = new ProcessingResult.PlateCoordinates(
@@ -213,53 +374,71 @@ public class ImageProcessorService {
                 detection.getPlateText(),
                 detection.getFormat(),
                 coords,
-                base64Image
+                processedImageBytes
         );
     }
 
-    private ProcessingResult processWithoutPlate(String processId, BufferedImage originalImage) throws IOException {
+    private ProcessingResult processWithoutPlate(String processId, byte[] imageData, ImageDecoder.DecodedImage decoded,
+                                                 boolean includeImage) throws IOException {
         System.out.println("[IMAGE-PROCESSOR] Nenhuma placa detectada");
 
-        // Apenas comprimir a imagem
-        byte[] compressedBytes = compressImageOptimized(originalImage);
-        String base64Image = Base64.getEncoder().encodeToString(compressedBytes);
+        if (!includeImage) {
+            return ProcessingResult.completed(processId, null);
+        }
 
-        System.out.println("[IMAGE-PROCESSOR] Imagem comprimida. Tamanho: " + compressedBytes.length + " bytes");
+        // Imagem inalterada: JPEG recebido na resolução original é devolvido sem recodificar
+        byte[] compressedBytes = jpegPassThrough.tryPassThrough(imageData, decoded);
+        if (compressedBytes != null) {
+            System.out.println("[IMAGE-PROCESSOR] JPEG original reaproveitado. Tamanho: " + compressedBytes.length + " bytes");
+        } else {
+            compressedBytes = compressImageOptimized(decoded.getImage());
+            System.out.println("[IMAGE-PROCESSOR] Imagem comprimida. Tamanho: " + compressedBytes.length + " bytes");
+        }
 
         // Salvar imagem comprimida
-        saveProcessedImageIfEnabled(processId, base64Image, null);
+        saveProcessedImageIfEnabled(processId, compressedBytes, null);
 
-        return ProcessingResult.completed(processId, base64Image);
+        return ProcessingResult.completed(processId, compressedBytes);
     }
 
-    private void saveProcessedImageIfEnabled(String processId, String base64Image, String plateText) {
-        if (imageSaveService != null && imageSaveService.isSaveEnabled()) {
+    private void saveProcessedImageIfEnabled(String processId, byte[] imageBytes, String plateText) {
+        if (imageSaveService == null || !imageSaveService.isSaveEnabled()) {
+            return;
+        }
+
+        ioExecutor.execute(() -> {
             try {
-                String processedPath = imageSaveService.saveProcessedImage(processId, base64Image, plateText);
+                String processedPath = imageSaveService.saveProcessedImage(processId, imageBytes, plateText);
                 if (processedPath != null) {
                     System.out.println("[IMAGE-PROCESSOR] Imagem processada salva em: " + processedPath);
                 }
             } catch (Exception e) {
                 System.err.println("[IMAGE-PROCESSOR] Erro ao salvar imagem processada: " + e.getMessage());
             }
-        }
+        });
+    }
+
+    // Nome já validado no controller; sem nome, a estratégia padrão
+    private AnonymizationStrategy anonymizationFor(ProcessingOptions options) {
+        return anonymizationRegistry.resolve(options.getAnonymization(), null);
     }
 
-    private byte[] applyIntelligentBlurAndCompress(BufferedImage image, Rectangle plateRegion) throws IOException {
-        System.out.println("[IMAGE-PROCESSOR] Aplicando blur inteligente na região: " + plateRegion);
+    private byte[] applyIntelligentBlurAndCompress(BufferedImage image, Rectangle plateRegion,
+                                                   AnonymizationStrategy strategy) throws IOException {
+        System.out.println("[IMAGE-PROCESSOR] Aplicando " + strategy.getName() + " na região: " + plateRegion);
 
         // Validar e ajustar região da placa
         Rectangle adjustedRegion = validateAndAdjustPlateRegion(plateRegion, image.getWidth(), image.getHeight());
         System.out.println("[IMAGE-PROCESSOR] Região ajustada: " + adjustedRegion);
 
-        // Criar cópia da imagem para processamento
-        BufferedImage processedImage = createImageCopy(image);
+        BufferedImage processedImage = prepareForAnonymization(image);
 
-        // Aplicar blur sofisticado
-        applyAdvancedBlur(processedImage, adjustedRegion);
+        strategy.anonymize(processedImage, adjustedRegion);
 
         // Adicionar indicador visual
-        addPrivacyIndicator(processedImage, adjustedRegion);
+        if (privacyIndicatorEnabled) {
+            addPrivacyIndicator(processedImage, adjustedRegion);
+        }
 
         return compressImageOptimized(processedImage);
     }
@@ -324,124 +503,16 @@ public class ImageProcessorService {
         return copy;
     }
 
-    private void applyAdvancedBlur(BufferedImage image, Rectangle region) {
-        System.out.println("[IMAGE-PROCESSOR] Aplicando blur avançado...");
-
-        // Blur gaussiano suave seguido de pixelização
-        applyGaussianBlur(image, region);
-        applyPixelationEffect(image, region);
-    }
-
-    private void applyGaussianBlur(BufferedImage image, Rectangle region) {
-        // Implementação simples de blur gaussiano
-        int radius = Math.max(4, Math.min(region.width / 18, region.height / 7)); // Aumentado ligeiramente
-
-        // Criar kernel gaussiano
-        float[] kernel = createGaussianKernel(radius);
-
-        // Aplicar blur horizontal e vertical
-        blurRegionWithKernel(image, region, kernel, radius, true);  // Horizontal
-        blurRegionWithKernel(image, region, kernel, radius, false); // Vertical
-    }
-
-    private float[] createGaussianKernel(int radius) {
-        int size = radius * 2 + 1;
-        float[] kernel = new float[size];
-        float sigma = radius / 3.0f;
-        float sum = 0;
-
-        for (int i = 0; i < size; i++) {
-            int x = i - radius;
-            kernel[i] = (float) Math.exp(-(x * x) / (2 * sigma * sigma));
-            sum += kernel[i];
-        }
-
-        // Normalizar kernel
-        for (int i = 0; i < size; i++) {
-            kernel[i] /= sum;
-        }
-
-        return kernel;
-    }
-
-    private void blurRegionWithKernel(BufferedImage image, Rectangle region, float[] kernel, int radius, boolean horizontal) {
-        BufferedImage temp = createImageCopy(image);
-
-        for (int y = region.y; y < region.y + region.height && y < image.getHeight(); y++) {
-            for (int x = region.x; x < region.x + region.width && x < image.getWidth(); x++) {
-
-                float red = 0, green = 0, blue = 0;
-
-                for (int i = 0; i < kernel.length; i++) {
-                    int offset = i - radius;
-                    int sampleX = horizontal ? Math.max(region.x, Math.min(region.x + region.width - 1, x + offset)) : x;
-                    int sampleY = horizontal ? y : Math.max(region.y, Math.min(region.y + region.height - 1, y + offset));
-
-                    if (sampleX >= 0 && sampleX < temp.getWidth() && sampleY >= 0 && sampleY < temp.getHeight()) {
-                        Color sampleColor = new Color(temp.getRGB(sampleX, sampleY));
-                        red += sampleColor.getRed() * kernel[i];
-                        green += sampleColor.getGreen() * kernel[i];
-                        blue += sampleColor.getBlue() * kernel[i];
-                    }
-                }
-
-                Color blurredColor = new Color(
-                        Math.max(0, Math.min(255, (int) red)),
-                        Math.max(0, Math.min(255, (int) green)),
-                        Math.max(0, Math.min(255, (int) blue))
-                );
-
-                image.setRGB(x, y, blurredColor.getRGB());
-            }
-        }
-    }
-
-    private void applyPixelationEffect(BufferedImage image, Rectangle region) {
-        int pixelSize = Math.max(PIXELATION_SIZE, Math.min(region.width / 12, region.height / 5)); // Ajustado
-        System.out.println("[IMAGE-PROCESSOR] Aplicando pixelização com tamanho: " + pixelSize);
-
-        for (int y = region.y; y < region.y + region.height; y += pixelSize) {
-            for (int x = region.x; x < region.x + region.width; x += pixelSize) {
-
-                int endX = Math.min(x + pixelSize, Math.min(region.x + region.width, image.getWidth()));
-                int endY = Math.min(y + pixelSize, Math.min(region.y + region.height, image.getHeight()));
-
-                if (x < image.getWidth() && y < image.getHeight()) {
-                    Color avgColor = calculateAverageColor(image, x, y, endX, endY);
-
-                    // Preencher o bloco com a cor média
-                    Graphics2D g2d = image.createGraphics();
-                    g2d.setColor(avgColor);
-                    g2d.fillRect(x, y, endX - x, endY - y);
-                    g2d.dispose();
-                }
-            }
-        }
-    }
-
-    private Color calculateAverageColor(BufferedImage image, int startX, int startY, int endX, int endY) {
-        long totalRed = 0, totalGreen = 0, totalBlue = 0;
-        int pixelCount = 0;
-
-        for (int y = startY; y < endY; y++) {
-            for (int x = startX; x < endX; x++) {
-                if (x < image.getWidth() && y < image.getHeight()) {
-                    Color color = new Color(image.getRGB(x, y));
-                    totalRed += color.getRed();
-                    totalGreen += color.getGreen();
-                    totalBlue += color.getBlue();
-                    pixelCount++;
-                }
-            }
+    // A imagem decodificada pertence a esta requisição e não é usada depois da codificação,
+    // então é anonimizada no próprio buffer. Só tipos com alfa ou paleta (PNG) são convertidos
+    // para RGB, como o encoder JPEG exige
+    private BufferedImage prepareForAnonymization(BufferedImage image) {
+        int type = image.getType();
+        if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_3BYTE_BGR
+                || type == BufferedImage.TYPE_BYTE_GRAY) {
+            return image;
         }
-
-        if (pixelCount == 0) return Color.GRAY;
-
-        return new Color(
-                (int) (totalRed / pixelCount),
-                (int) (totalGreen / pixelCount),
-                (int) (totalBlue / pixelCount)
-        );
+        return createImageCopy(image);
     }
 
     private void addPrivacyIndicator(BufferedImage image, Rectangle region) {
@@ -496,32 +567,9 @@ public class ImageProcessorService {
     }
 
     private byte[] compressImageOptimized(BufferedImage image) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-        // Usar compressão JPEG com qualidade controlada
-        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpg");
-        if (!writers.hasNext()) {
-            throw new IOException("Nenhum escritor JPEG disponível");
-        }
-
-        ImageWriter writer = writers.next();
-        ImageWriteParam param = writer.getDefaultWriteParam();
-
-        if (param.canWriteCompressed()) {
-            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-            param.setCompressionQuality(COMPRESSION_QUALITY);
-        }
-
-        try (ImageOutputStream ios = ImageIO.createImageOutputStream(baos)) {
-            writer.setOutput(ios);
-            writer.write(null, new javax.imageio.IIOImage(image, null, null), param);
-        } finally {
-            writer.dispose();
-        }
-
-        byte[] result = baos.toByteArray();
+        byte[] result = jpegEncoder.encode(image);
         System.out.println("[IMAGE-PROCESSOR] Imagem comprimida: " + result.length + " bytes (qualidade: " +
-                (COMPRESSION_QUALITY * 100) + "%)");
+                (jpegEncoder.getQuality() * 100) + "%)");
 
         return result;
     }
@@ -529,7 +577,7 @@ public class ImageProcessorService {
     // Métodos de cache e utilitários
     public ProcessingResult getProcessingStatus(String processId) {
         System.out.println("[IMAGE-PROCESSOR] Consultando status para " + processId);
-        ProcessingResult result = processingCache.get(processId);
+        ProcessingResult result = resultStore.get(processId);
 
         if (result != null) {
             System.out.println("[IMAGE-PROCESSOR] Status encontrado: " + result.getStatus());
@@ -542,7 +590,17 @@ public class ImageProcessorService {
 
     public void clearProcessingResult(String processId) {
         System.out.println("[IMAGE-PROCESSOR] Limpando resultado para " + processId);
-        ProcessingResult removed = processingCache.remove(processId);
+
+        // Processamento ainda em andamento: as etapas encerram no próximo ponto de verificação
+        ProcessingDeadline deadline = inFlight.get(processId);
+        if (deadline != null) {
+            deadline.cancel();
+            System.out.println("[IMAGE-PROCESSOR] Processamento em andamento cancelado");
+            // Encerra já as assinaturas de /stream/{id}, sem esperar a etapa atual terminar
+            resultStreamPublisher.publish(ProcessingResult.error(processId, "Processamento cancelado"));
+        }
+
+        ProcessingResult removed = resultStore.remove(processId);
         if (removed != null) {
             System.out.println("[IMAGE-PROCESSOR] Resultado removido com sucesso");
         } else {
@@ -551,29 +609,72 @@ public class ImageProcessorService {
     }
 
     public int getCacheSize() {
-        int size = processingCache.size();
+        int size = resultStore.size();
         System.out.println("[IMAGE-PROCESSOR] Tamanho atual do cache: " + size);
         return size;
     }
 
-    // Método para limpar cache antigo (opcional)
+    // Remove os resultados com TTL vencido (o store também faz isso periodicamente)
     public void cleanupOldResults() {
         System.out.println("[IMAGE-PROCESSOR] Executando limpeza de cache...");
-        int initialSize = processingCache.size();
+        int initialSize = resultStore.size();
 
-        // Aqui você pode implementar lógica para remover resultados antigos
-        // Por exemplo, baseado em timestamp dos ProcessingResult
+        resultStore.evictExpired();
 
-        int finalSize = processingCache.size();
+        int finalSize = resultStore.size();
         System.out.println("[IMAGE-PROCESSOR] Cache limpo: " + initialSize + " -> " + finalSize + " entradas");
     }
 
+    public Map<String, Object> getCacheStatistics() {
+        return resultStore.getStatistics();
+    }
+
+    public Map<String, Object> getDetectionCacheStatistics() {
+        return detectionCache.getStatistics();
+    }
+
+    public Map<String, Object> getEncoderStatistics() {
+        return jpegEncoder.getStatistics();
+    }
+
+    public Map<String, Object> getPassThroughStatistics() {
+        return jpegPassThrough.getStatistics();
+    }
+
     // Método para estatísticas (opcional)
     public void logProcessingStatistics() {
         System.out.println("[IMAGE-PROCESSOR] === Estatísticas de Processamento ===");
-        System.out.println("[IMAGE-PROCESSOR] Cache size: " + processingCache.size());
-        System.out.println("[IMAGE-PROCESSOR] Qualidade de compressão: " + (COMPRESSION_QUALITY * 100) + "%");
-        System.out.println("[IMAGE-PROCESSOR] Timeout configurado: " + PROCESSING_TIMEOUT_MS + "ms");
+        System.out.println("[IMAGE-PROCESSOR] Cache: " + resultStore.getStatistics());
+        System.out.println("[IMAGE-PROCESSOR] Qualidade de compressão: " + (jpegEncoder.getQuality() * 100) + "%");
+        System.out.println("[IMAGE-PROCESSOR] Timeout configurado: " + processingTimeoutMs + "ms");
         System.out.println("[IMAGE-PROCESSOR] ===================================");
     }
-}
\ No newline at end of file
+
+    // Estado de uma imagem ao longo das etapas do pipeline. Cada etapa roda depois da
+    // anterior (happens-before garantido pelo CompletableFuture), então não há acesso concorrente
+    private static class PipelineContext {
+        final String processId;
+        final byte[] imageData;
+        final ProcessingOptions options;
+        final long startTime = System.currentTimeMillis();
+        final ProcessingDeadline deadline;
+
+        String cacheKey;
+        ImageDecoder.DecodedImage decoded;
+        BufferedImage image;
+        List<LicensePlateDetector.ScoredCandidate> candidates;
+        LicensePlateDetector.PlateDetectionResult detection;
+        ProcessingResult result;
+
+        PipelineContext(String processId, byte[] imageData, ProcessingOptions options, ProcessingDeadline deadline) {
+            this.processId = processId;
+            this.imageData = imageData;
+            this.options = options;
+            this.deadline = deadline;
+        }
+
+        long elapsedMs() {
+            return System.currentTimeMillis() - startTime;
+        }
+    }
+}
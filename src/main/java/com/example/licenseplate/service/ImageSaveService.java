@@ -10,7 +10,6 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Base64;
 
 @Service
 public class ImageSaveService {
@@ -26,8 +25,8 @@ public class ImageSaveService {
         System.out.println("[SAVE-SERVICE] Configuração carregada: enabled=" + saveEnabled + ", path=" + baseSavePath);
     }
 
-    public String saveProcessedImage(String processId, String base64Image, String plateText) {
-        if (!saveEnabled || base64Image == null || base64Image.isEmpty()) {
+    public String saveProcessedImage(String processId, byte[] imageBytes, String plateText) {
+        if (!saveEnabled || imageBytes == null || imageBytes.length == 0) {
             return null;
         }
 
@@ -40,11 +39,10 @@ public class ImageSaveService {
 
             String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
             String plateInfo = plateText != null ? "_" + plateText : "_no_plate";
-            String filename = String.format("processed_%s%s_%s.jpg", timestamp, plateInfo, processId.substring(0, 8));
+            String filename = String.format("processed_%s%s_%s.jpg", timestamp, plateInfo, shortId(processId));
 
             Path filePath = saveDir.resolve(filename);
 
-            byte[] imageBytes = Base64.getDecoder().decode(base64Image);
             Files.write(filePath, imageBytes);
 
             String savedPath = filePath.toAbsolutePath().toString();
@@ -71,7 +69,7 @@ public class ImageSaveService {
             }
 
             String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String filename = String.format("original_%s_%s.jpg", timestamp, processId.substring(0, 8));
+            String filename = String.format("original_%s_%s.jpg", timestamp, shortId(processId));
             Path filePath = saveDir.resolve(filename);
 
             Files.write(filePath, imageData);
@@ -134,4 +132,12 @@ public class ImageSaveService {
     public String getSavePath() {
         return baseSavePath;
     }
+
+    // Prefixo do UUID; itens de lote (batchId-índice) mantêm o índice para não colidirem
+    private String shortId(String processId) {
+        if (processId.length() > 36) {
+            return processId.substring(0, 8) + processId.substring(36);
+        }
+        return processId.substring(0, Math.min(8, processId.length()));
+    }
 }
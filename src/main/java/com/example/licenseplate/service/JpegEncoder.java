@@ -0,0 +1,208 @@
+package com.example.licenseplate.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOInvalidTreeException;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Codificação JPEG das imagens devolvidas pela API. Cada thread do encodeExecutor mantém o
+// seu ImageWriter (busca de SPI e inicialização do codec nativo uma única vez por thread), a
+// saída vai para um buffer já dimensionado pelo tamanho médio observado e o stream fica em
+// memória, sem o arquivo temporário que ImageIO.createImageOutputStream usa por padrão
+@Component
+public class JpegEncoder {
+
+    private static final String NATIVE_FORMAT = "javax_imageio_jpeg_image_1.0";
+
+    // Estimativa inicial de bytes por pixel até haver amostras (JPEG q≈0.85 em fotos de rua)
+    private static final double INITIAL_BYTES_PER_PIXEL = 0.25;
+
+    @Value("${image.compression.quality:0.85}")
+    private float quality;
+
+    // 420 (padrão do codec), 422 ou 444. 444 preserva bordas coloridas, com arquivos bem maiores
+    @Value("${image.jpeg.chroma-subsampling:420}")
+    private String chromaSubsampling;
+
+    // Progressivo gera arquivos um pouco menores, mas custa mais CPU na codificação
+    @Value("${image.jpeg.progressive:false}")
+    private boolean progressive;
+
+    private final ThreadLocal<ImageWriter> writers = ThreadLocal.withInitial(JpegEncoder::createWriter);
+
+    // Média móvel de bytes por pixel, em milésimos, para dimensionar o buffer de saída
+    private final AtomicLong bytesPerPixelMillis = new AtomicLong(Math.round(INITIAL_BYTES_PER_PIXEL * 1000));
+
+    private final AtomicLong encodeCount = new AtomicLong();
+    private final AtomicLong totalEncodeNanos = new AtomicLong();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong bufferGrowths = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (quality <= 0f || quality > 1f) {
+            throw new IllegalStateException("image.compression.quality deve estar entre 0 e 1: " + quality);
+        }
+        chromaSubsampling = chromaSubsampling.trim();
+        if (!chromaSubsampling.equals("420") && !chromaSubsampling.equals("422") && !chromaSubsampling.equals("444")) {
+            throw new IllegalStateException("image.jpeg.chroma-subsampling inválido: " + chromaSubsampling + " (420, 422 ou 444)");
+        }
+
+        System.out.println("[JPEG-ENCODER] Qualidade " + (quality * 100) + "%, subamostragem " + chromaSubsampling +
+                (progressive ? ", progressivo" : ""));
+    }
+
+    public byte[] encode(BufferedImage image) throws IOException {
+        long start = System.nanoTime();
+        ImageWriter writer = writers.get();
+
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+        }
+        if (param.canWriteProgressive()) {
+            param.setProgressiveMode(progressive ? ImageWriteParam.MODE_DEFAULT : ImageWriteParam.MODE_DISABLED);
+        }
+
+        int expectedSize = expectedSize(image);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(expectedSize);
+
+        boolean failed = true;
+        try (ImageOutputStream ios = new MemoryCacheImageOutputStream(baos)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, subsamplingMetadata(writer, image, param)), param);
+            failed = false;
+        } finally {
+            writer.setOutput(null);
+            if (failed) {
+                // Writer em estado desconhecido: a próxima codificação desta thread cria outro
+                writers.remove();
+                writer.dispose();
+            }
+        }
+
+        byte[] result = baos.toByteArray();
+        recordEncode(image, result.length, expectedSize, System.nanoTime() - start);
+        return result;
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+
+    public Map<String, Object> getStatistics() {
+        long count = encodeCount.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("quality", quality);
+        stats.put("chromaSubsampling", chromaSubsampling);
+        stats.put("progressive", progressive);
+        stats.put("encodeCount", count);
+        stats.put("avgEncodeMs", count == 0 ? 0.0 : totalEncodeNanos.get() / 1_000_000.0 / count);
+        stats.put("avgBytes", count == 0 ? 0 : totalBytes.get() / count);
+        stats.put("bytesPerPixel", bytesPerPixelMillis.get() / 1000.0);
+        stats.put("bufferGrowths", bufferGrowths.get());
+        return stats;
+    }
+
+    private static ImageWriter createWriter() {
+        Iterator<ImageWriter> iterator = ImageIO.getImageWritersByFormatName("jpg");
+        if (!iterator.hasNext()) {
+            throw new IllegalStateException("Nenhum escritor JPEG disponível");
+        }
+        ImageWriter writer = iterator.next();
+        System.out.println("[JPEG-ENCODER] Writer " + writer.getClass().getSimpleName() +
+                " criado para " + Thread.currentThread().getName());
+        return writer;
+    }
+
+    // Tamanho esperado com 10% de folga, para que o buffer quase nunca precise crescer
+    private int expectedSize(BufferedImage image) {
+        long pixels = (long) image.getWidth() * image.getHeight();
+        long estimate = pixels * bytesPerPixelMillis.get() / 1000;
+        return (int) Math.min(Integer.MAX_VALUE - 8, estimate + estimate / 10 + 1024);
+    }
+
+    private void recordEncode(BufferedImage image, int size, int expectedSize, long nanos) {
+        encodeCount.incrementAndGet();
+        totalEncodeNanos.addAndGet(nanos);
+        totalBytes.addAndGet(size);
+        if (size > expectedSize) {
+            bufferGrowths.incrementAndGet();
+        }
+
+        // Média móvel exponencial (peso 1/8 para a amostra nova)
+        long pixels = Math.max(1L, (long) image.getWidth() * image.getHeight());
+        long sample = size * 1000L / pixels;
+        bytesPerPixelMillis.accumulateAndGet(sample, (current, next) -> current + (next - current) / 8);
+    }
+
+    // 420 é o que o codec já usa; para 422/444 ajusta os fatores de amostragem do componente
+    // de luminância no SOF (os de crominância ficam em 1). Imagens em tons de cinza não têm croma
+    private IIOMetadata subsamplingMetadata(ImageWriter writer, BufferedImage image, ImageWriteParam param)
+            throws IIOInvalidTreeException {
+        if (chromaSubsampling.equals("420") || image.getColorModel().getNumColorComponents() < 3) {
+            return null;
+        }
+
+        IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), param);
+        if (metadata == null || !isNativeFormatSupported(metadata)) {
+            return null;
+        }
+
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(NATIVE_FORMAT);
+        IIOMetadataNode sof = firstChild(root, "sof");
+        if (sof == null) {
+            return null;
+        }
+
+        int horizontal = chromaSubsampling.equals("422") ? 2 : 1;
+        IIOMetadataNode luma = firstChild(sof, "componentSpec");
+        if (luma == null) {
+            return null;
+        }
+        luma.setAttribute("HsamplingFactor", Integer.toString(horizontal));
+        luma.setAttribute("VsamplingFactor", "1");
+
+        metadata.setFromTree(NATIVE_FORMAT, root);
+        return metadata;
+    }
+
+    private static boolean isNativeFormatSupported(IIOMetadata metadata) {
+        String name = metadata.getNativeMetadataFormatName();
+        return name != null && name.toLowerCase(Locale.ROOT).equals(NATIVE_FORMAT);
+    }
+
+    // Busca em profundidade pelo primeiro nó com o nome dado
+    private static IIOMetadataNode firstChild(IIOMetadataNode node, String name) {
+        for (int i = 0; i < node.getLength(); i++) {
+            IIOMetadataNode child = (IIOMetadataNode) node.item(i);
+            if (name.equals(child.getNodeName())) {
+                return child;
+            }
+            IIOMetadataNode found = firstChild(child, name);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.licenseplate.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Frames sem placa não mudam: quando o upload já é um JPEG aceitável e foi processado na
+// resolução original, os bytes recebidos são devolvidos como estão, sem decodificar de novo
+// nem recodificar. Opcionalmente remove metadados (EXIF/XMP, comentários) copiando os
+// segmentos sem tocar nos dados comprimidos, ou seja, sem perda
+@Component
+public class JpegPassThrough {
+
+    private static final int SOI = 0xD8;
+    private static final int EOI = 0xD9;
+    private static final int SOS = 0xDA;
+    private static final int APP0 = 0xE0;
+    private static final int APP2 = 0xE2;
+    private static final int APP14 = 0xEE;
+    private static final int COM = 0xFE;
+
+    @Value("${image.passthrough.enabled:true}")
+    private boolean enabled;
+
+    // Remove APP1 (EXIF/XMP, inclusive GPS), APP3-APP13, APP15 e comentários. Mantém APP0
+    // (JFIF), APP2 (perfil ICC) e APP14 (Adobe, transformação de cor), que alteram a exibição
+    @Value("${image.passthrough.strip-metadata:true}")
+    private boolean stripMetadata;
+
+    // JPEGs de qualidade muito alta continuam sendo recodificados para não inflar a resposta
+    @Value("${image.passthrough.max-bytes-per-pixel:0.6}")
+    private double maxBytesPerPixel;
+
+    private final AtomicLong passedThrough = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong strippedBytes = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        System.out.println("[JPEG-PASSTHROUGH] " + (enabled
+                ? "Habilitado (remoção de metadados: " + stripMetadata + ", máx. " + maxBytesPerPixel + " bytes/pixel)"
+                : "Desabilitado"));
+    }
+
+    // Bytes a devolver no lugar da recodificação, ou null quando a imagem precisa ser recodificada
+    public byte[] tryPassThrough(byte[] imageData, ImageDecoder.DecodedImage decoded) {
+        if (!enabled || decoded == null || decoded.isResized() || !isJpegFormat(decoded.getFormatName())) {
+            return null;
+        }
+
+        long pixels = (long) decoded.getSourceWidth() * decoded.getSourceHeight();
+        if (imageData.length > pixels * maxBytesPerPixel) {
+            rejected.incrementAndGet();
+            return null;
+        }
+
+        byte[] result = copySegments(imageData, stripMetadata);
+        if (result == null) {
+            rejected.incrementAndGet();
+            return null;
+        }
+
+        passedThrough.incrementAndGet();
+        strippedBytes.addAndGet(imageData.length - result.length);
+        return result;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("stripMetadata", stripMetadata);
+        stats.put("passedThrough", passedThrough.get());
+        stats.put("rejected", rejected.get());
+        stats.put("strippedBytes", strippedBytes.get());
+        return stats;
+    }
+
+    private static boolean isJpegFormat(String formatName) {
+        return formatName != null && (formatName.equalsIgnoreCase("jpeg") || formatName.equalsIgnoreCase("jpg"));
+    }
+
+    // Percorre os segmentos até o SOS. Só aceita JPEG baseline/estendido/progressivo com
+    // Huffman e 1 ou 3 componentes (CMYK e codificação aritmética são recodificados), com EOI
+    // no fim (frames truncados também). Retorna o próprio array quando não há o que remover
+    private static byte[] copySegments(byte[] data, boolean strip) {
+        int length = data.length;
+        if (length < 4 || (data[0] & 0xFF) != 0xFF || (data[1] & 0xFF) != SOI
+                || (data[length - 2] & 0xFF) != 0xFF || (data[length - 1] & 0xFF) != EOI) {
+            return null;
+        }
+
+        ByteArrayOutputStream out = strip ? new ByteArrayOutputStream(length) : null;
+        if (out != null) {
+            out.write(data, 0, 2);
+        }
+
+        boolean frameAccepted = false;
+        boolean removed = false;
+        int pos = 2;
+        while (pos + 4 <= length) {
+            if ((data[pos] & 0xFF) != 0xFF) {
+                return null;
+            }
+            int marker = data[pos + 1] & 0xFF;
+            if (marker == 0xFF) {
+                // Bytes de preenchimento entre segmentos
+                pos++;
+                continue;
+            }
+
+            if (marker == SOS) {
+                if (!frameAccepted) {
+                    return null;
+                }
+                if (out == null || !removed) {
+                    return data;
+                }
+                // Dados comprimidos (e, no progressivo, os demais scans) copiados sem alteração
+                out.write(data, pos, length - pos);
+                return out.toByteArray();
+            }
+            if (marker == EOI || marker == SOI || (marker >= 0xD0 && marker <= 0xD7) || marker == 0x01) {
+                // Marcadores sem segmento não deveriam aparecer antes do SOS
+                return null;
+            }
+
+            int segmentLength = ((data[pos + 2] & 0xFF) << 8) | (data[pos + 3] & 0xFF);
+            if (segmentLength < 2 || pos + 2 + segmentLength > length) {
+                return null;
+            }
+
+            if (isStartOfFrame(marker)) {
+                int components = segmentLength >= 8 ? data[pos + 9] & 0xFF : 0;
+                if (marker > 0xC2 || (components != 1 && components != 3)) {
+                    return null;
+                }
+                frameAccepted = true;
+            }
+
+            if (strip && isStrippable(marker)) {
+                removed = true;
+            } else if (out != null) {
+                out.write(data, pos, 2 + segmentLength);
+            }
+            pos += 2 + segmentLength;
+        }
+        return null;
+    }
+
+    // SOF0-SOF15, exceto DHT (C4), JPG (C8) e DAC (CC)
+    private static boolean isStartOfFrame(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    private static boolean isStrippable(int marker) {
+        if (marker == COM) {
+            return true;
+        }
+        return marker >= APP0 && marker <= 0xEF && marker != APP0 && marker != APP2 && marker != APP14;
+    }
+}
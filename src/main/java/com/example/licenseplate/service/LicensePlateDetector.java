@@ -1,7 +1,20 @@
 package com.example.licenseplate.service;
 
+import com.example.licenseplate.dto.RegionOfInterest;
+import com.example.licenseplate.imaging.AdaptiveThreshold;
+import com.example.licenseplate.imaging.ConnectedComponents;
+import com.example.licenseplate.imaging.GrayImage;
+import com.example.licenseplate.imaging.GrayOps;
+import com.example.licenseplate.imaging.ImagePyramid;
+import com.example.licenseplate.imaging.IntegralImage;
+import com.example.licenseplate.imaging.Morphology;
+import jakarta.annotation.PostConstruct;
+import net.sourceforge.tess4j.ITessAPI;
 import net.sourceforge.tess4j.Tesseract;
 import net.sourceforge.tess4j.TesseractException;
+import net.sourceforge.tess4j.Word;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -12,18 +25,69 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 import java.util.regex.Pattern;
 
 @Service
 public class LicensePlateDetector {
 
-    @Value("${tesseract.data.path:C:\\Program Files\\Tesseract-OCR\\tessdata}")
-    private String tessDataPath;
+    @Autowired
+    private TesseractPool tesseractPool;
 
-    @Value("${tesseract.language:por}")
-    private String tessLanguage;
+    @Autowired
+    @Qualifier("detectionForkJoinPool")
+    private ForkJoinPool detectionPool;
 
-    private Tesseract tesseract;
+    @Autowired
+    @Qualifier("speculativeOcrExecutor")
+    private Executor speculativeOcrExecutor;
+
+    @Value("${ocr.speculative.enabled:false}")
+    private boolean speculativeOcr;
+
+    @Value("${ocr.speculative.top-k:4}")
+    private int speculativeTopK;
+
+    @Value("${ocr.speculative.resolution-policy:FIRST_VALID}")
+    private OcrResolutionPolicy resolutionPolicy;
+
+    @Value("${ocr.speculative.early-accept-confidence:90}")
+    private double earlyAcceptConfidence;
+
+    @Value("${image.processing.parallel:true}")
+    private boolean parallelDetection;
+
+    // Busca coarse-to-fine por cor: janelas relativas ao tamanho da imagem num nível reduzido
+    // da pirâmide e refinamento só das melhores regiões na resolução original
+    @Value("${plate.detection.pyramid.enabled:true}")
+    private boolean pyramidEnabled;
+
+    @Value("${plate.detection.pyramid.coarse-width:480}")
+    private int pyramidCoarseWidth;
+
+    @Value("${plate.detection.pyramid.refine-top:10}")
+    private int pyramidRefineTop;
+
+    @Value("${image.threshold.window-size:15}")
+    private int thresholdWindowSize;
+
+    @Value("${image.threshold.offset:10}")
+    private int thresholdOffset;
+
+    @Value("${image.threshold.method:MEAN}")
+    private AdaptiveThreshold.Method thresholdMethod;
+
+    private AdaptiveThreshold adaptiveThreshold;
 
     // Padrões de placas brasileiras
     private static final Pattern MERCOSUL_PATTERN = Pattern.compile("^[A-Z]{3}[0-9][A-Z][0-9]{2}$");
@@ -37,118 +101,242 @@ public class LicensePlateDetector {
     private static final int MIN_PLATE_WIDTH = 120;
     private static final int MIN_PLATE_HEIGHT = 30;
 
-    public LicensePlateDetector() {
-        initializeTesseract();
+    // Limiares usados nas estatísticas de região
+    private static final int BRIGHT_PIXEL_THRESHOLD = 180;
+    private static final int EDGE_GRADIENT_THRESHOLD = 50;
+
+    // Grade da varredura por janela deslizante em detectByColor
+    private static final int COLOR_SCAN_STEP_X = 15;
+    private static final int COLOR_SCAN_STEP_Y = 10;
+    private static final int[] COLOR_SCAN_WIDTHS = {180, 220, 260, 300, 340};
+    private static final int[] COLOR_SCAN_HEIGHTS = {60, 70, 80, 90};
+    private static final int COLOR_SCAN_ROWS_PER_TASK = 4;
+
+    // Detecção por bordas: limiar mínimo da magnitude Sobel e raio do fechamento horizontal
+    // (proporcional à largura da imagem, para unir caracteres em qualquer resolução)
+    private static final int EDGE_MIN_THRESHOLD = 40;
+    private static final int EDGE_CLOSE_MIN_RADIUS = 4;
+    private static final int EDGE_CLOSE_WIDTH_DIVISOR = 120;
+    private static final int MIN_PLATE_AREA_PIXELS = (int) MIN_PLATE_AREA;
+
+    // Varredura sistemática: blocos de contraste e limites mínimos de entropia/desvio padrão
+    private static final int CONTRAST_BLOCK_SIZE = 16;
+    private static final double MIN_ROI_ENTROPY = 3.0;
+    private static final double MIN_BLOCK_STDDEV = 30;
+
+    // Janelas da pirâmide: largura da placa como fração da largura da imagem (veículos
+    // distantes a próximos), crescendo em progressão geométrica, e proporções largura/altura
+    private static final double PYRAMID_MIN_PLATE_FRACTION = 0.06;
+    private static final double PYRAMID_MAX_PLATE_FRACTION = 0.45;
+    private static final double PYRAMID_WIDTH_GROWTH = 1.2;
+    private static final double[] PYRAMID_ASPECT_RATIOS = {2.5, 3.0, 3.5, 4.5};
+    private static final double PYRAMID_MIN_EDGE_RATIO = 0.05;
+    // Abaixo disso o Tesseract não lê os caracteres, mesmo com a região correta
+    private static final int PYRAMID_MIN_REFINED_WIDTH = 60;
+    private static final int PYRAMID_MIN_REFINED_HEIGHT = 16;
+
+    @PostConstruct
+    public void init() {
+        adaptiveThreshold = new AdaptiveThreshold(thresholdMethod, thresholdWindowSize, thresholdOffset);
+        System.out.println("[DETECTOR] Threshold adaptativo: " + thresholdMethod +
+                " (janela " + adaptiveThreshold.getWindowSize() + ", offset " + thresholdOffset + ")");
     }
 
-    private void initializeTesseract() {
+    public PlateDetectionResult detectPlate(byte[] imageData) {
+        BufferedImage image = null;
         try {
-            tesseract = new Tesseract();
-            tesseract.setDatapath(tessDataPath);
-            tesseract.setLanguage(tessLanguage);
-            tesseract.setPageSegMode(8); // Trata a imagem como uma única palavra
-            tesseract.setOcrEngineMode(1); // Usa LSTM OCR Engine
+            image = ImageIO.read(new ByteArrayInputStream(imageData));
+            if (image == null) {
+                System.err.println("[DETECTOR] Falha ao carregar imagem");
+                return new PlateDetectionResult(false, null, null, null);
+            }
 
-            // Configuração específica para placas - apenas letras e números
-            tesseract.setVariable("tessedit_char_whitelist", "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789");
+            return detectPlate(image);
 
-            System.out.println("[DETECTOR] Tesseract inicializado: " + tessDataPath);
-        } catch (Exception e) {
-            System.err.println("[DETECTOR] Erro ao inicializar Tesseract: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("[DETECTOR] Erro ao decodificar imagem: " + e.getMessage());
+            return new PlateDetectionResult(false, null, null, null);
+        } finally {
+            if (image != null) image.flush();
         }
     }
 
-    public PlateDetectionResult detectPlate(byte[] imageData) {
+    // Detecção sobre uma imagem já decodificada. A imagem é apenas lida (nunca alterada),
+    // então o chamador pode reaproveitá-la depois para blur e compressão
+    public PlateDetectionResult detectPlate(BufferedImage image) {
+        return recognize(findCandidates(image, null, ProcessingDeadline.none()), ProcessingDeadline.none());
+    }
+
+    // Etapa 1 (CPU): regiões candidatas ordenadas por score, com o recorte já pré-processado.
+    // Com ROI as varreduras ficam restritas às zonas; sem ela (null) valem as faixas padrão.
+    // Com o prazo vencido devolve apenas o que já foi encontrado e pontuado
+    public List<ScoredCandidate> findCandidates(BufferedImage image, RegionOfInterest roi, ProcessingDeadline deadline) {
         long startTime = System.currentTimeMillis();
         System.out.println("[DETECTOR] === Iniciando Detecção de Placas ===");
 
-        BufferedImage image = null;
         try {
-            image = ImageIO.read(new ByteArrayInputStream(imageData));
-            if (image == null) {
-                System.err.println("[DETECTOR] Falha ao carregar imagem");
-                return new PlateDetectionResult(false, null, null, null);
+            System.out.println("[DETECTOR] Imagem recebida: " + image.getWidth() + "x" + image.getHeight());
+
+            RegionOfInterest.Zones zones = null;
+            if (roi != null) {
+                zones = roi.resolve(image.getWidth(), image.getHeight());
+                long imageArea = (long) image.getWidth() * image.getHeight();
+                System.out.println("[DETECTOR] ROI: " + zones.getBounds().size() + " zona(s), " +
+                        (100 * zones.area() / Math.max(1, imageArea)) + "% da imagem");
+                if (zones.getBounds().isEmpty()) {
+                    return new ArrayList<>();
+                }
             }
 
-            System.out.println("[DETECTOR] Imagem carregada: " + image.getWidth() + "x" + image.getHeight());
+            List<ScoredCandidate> candidates = detectPlateRegions(image, zones, deadline);
+            System.out.println("[DETECTOR] Candidatos encontrados: " + candidates.size() +
+                    " em " + (System.currentTimeMillis() - startTime) + "ms" +
+                    (deadline.isExpired() ? " (prazo esgotado, resultado parcial)" : ""));
+            return candidates;
 
-            // 1. Detectar regiões candidatas usando múltiplas técnicas
-            List<Rectangle> candidates = detectPlateRegions(image);
-            System.out.println("[DETECTOR] Candidatos encontrados: " + candidates.size());
+        } catch (Exception e) {
+            System.err.println("[DETECTOR] Erro na detecção: " + e.getMessage());
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
 
-            // 2. Analisar cada candidato com OCR
-            for (int i = 0; i < candidates.size(); i++) {
-                Rectangle candidate = candidates.get(i);
-                System.out.println("[DETECTOR] Analisando candidato " + (i+1) + ": " +
-                        candidate.x + "," + candidate.y + " " + candidate.width + "x" + candidate.height);
+    // Etapa 2 (OCR): analisa os candidatos com o Tesseract até encontrar uma placa válida
+    // ou o prazo acabar (a chamada nativa em andamento não é interrompida)
+    public PlateDetectionResult recognize(List<ScoredCandidate> candidates, ProcessingDeadline deadline) {
+        long startTime = System.currentTimeMillis();
 
-                PlateDetectionResult result = analyzeCandidate(image, candidate);
-                if (result.isFound()) {
-                    long totalTime = System.currentTimeMillis() - startTime;
-                    System.out.println("[DETECTOR] ✅ PLACA DETECTADA em " + totalTime + "ms: " + result.getPlateText());
-                    return result;
-                }
+        try {
+            PlateDetectionResult result = speculativeOcr && candidates.size() > 1
+                    ? analyzeCandidatesSpeculatively(candidates, deadline)
+                    : analyzeCandidatesSequentially(candidates, 0, deadline);
+
+            if (result.isFound()) {
+                long totalTime = System.currentTimeMillis() - startTime;
+                System.out.println("[DETECTOR] ✅ PLACA DETECTADA (OCR em " + totalTime + "ms): " + result.getPlateText());
+                return result;
             }
 
             long totalTime = System.currentTimeMillis() - startTime;
-            System.out.println("[DETECTOR] ❌ Nenhuma placa detectada em " + totalTime + "ms");
+            System.out.println("[DETECTOR] ❌ Nenhuma placa detectada (OCR em " + totalTime + "ms)");
             return new PlateDetectionResult(false, null, null, null);
 
         } catch (Exception e) {
-            System.err.println("[DETECTOR] Erro na detecção: " + e.getMessage());
+            System.err.println("[DETECTOR] Erro no OCR: " + e.getMessage());
             e.printStackTrace();
             return new PlateDetectionResult(false, null, null, null);
-        } finally {
-            if (image != null) image.flush();
         }
     }
 
-    private List<Rectangle> detectPlateRegions(BufferedImage image) {
+    private List<ScoredCandidate> detectPlateRegions(BufferedImage image, RegionOfInterest.Zones zones,
+                                                     ProcessingDeadline deadline) {
         List<PlateCandidate> allCandidates = new ArrayList<>();
 
-        // Método 1: Detecção por contraste e bordas
-        allCandidates.addAll(detectByEdges(image));
+        // Luminância e tabelas integrais construídas uma única vez para toda a imagem
+        GrayImage gray = GrayImage.fromBufferedImage(image);
+        IntegralImage integral = IntegralImage.build(gray, BRIGHT_PIXEL_THRESHOLD, EDGE_GRADIENT_THRESHOLD);
+
+        if (parallelDetection) {
+            // As três estratégias rodam em paralelo; a concatenação mantém a ordem sequencial
+            ForkJoinTask<List<PlateCandidate>> edgeTask = detectionPool.submit(() -> detectByEdges(gray, zones, deadline));
+            ForkJoinTask<List<PlateCandidate>> scanTask = detectionPool.submit(() -> detectBySystematicScan(image, gray, zones, deadline));
+            List<PlateCandidate> colorCandidates = detectByColor(gray, integral, zones, deadline);
+
+            allCandidates.addAll(edgeTask.join());
+            allCandidates.addAll(colorCandidates);
+            allCandidates.addAll(scanTask.join());
+        } else {
+            // Método 1: Detecção por contraste e bordas
+            allCandidates.addAll(detectByEdges(gray, zones, deadline));
 
-        // Método 2: Detecção por características de cor (branco/cinza)
-        allCandidates.addAll(detectByColor(image));
+            // Método 2: Detecção por características de cor (branco/cinza)
+            allCandidates.addAll(detectByColor(gray, integral, zones, deadline));
 
-        // Método 3: Varredura sistemática em regiões prováveis
-        allCandidates.addAll(detectBySystematicScan(image));
+            // Método 3: Varredura sistemática em regiões prováveis
+            allCandidates.addAll(detectBySystematicScan(image, gray, zones, deadline));
+        }
 
         // Remover duplicatas e filtrar
-        List<Rectangle> filtered = removeDuplicatesAndFilter(allCandidates);
+        List<PlateCandidate> filtered = removeDuplicatesAndFilter(allCandidates);
+        if (zones != null) {
+            // Os envelopes retangulares podem incluir áreas fora de polígonos inclinados
+            filtered.removeIf(candidate -> !zones.containsCenter(candidate.rectangle));
+        }
+
+        // Score composto calculado uma única vez por região, antes da ordenação.
+        // Com o prazo vencido os candidatos restantes ficam de fora (scoreCandidate devolve null)
+        List<ScoredCandidate> scored;
+        if (parallelDetection) {
+            scored = detectionPool.submit(() -> filtered.parallelStream()
+                    .map(candidate -> scoreCandidate(image, integral, candidate, deadline))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList())).join();
+        } else {
+            scored = new ArrayList<>(filtered.size());
+            for (PlateCandidate candidate : filtered) {
+                ScoredCandidate result = scoreCandidate(image, integral, candidate, deadline);
+                if (result == null) break;
+                scored.add(result);
+            }
+        }
 
         // Ordenar por score de confiança
-        filtered.sort((a, b) -> Double.compare(
-                calculateRegionScore(image, b),
-                calculateRegionScore(image, a)
-        ));
+        scored.sort((a, b) -> Double.compare(b.score, a.score));
 
-        return filtered.subList(0, Math.min(8, filtered.size()));
+        return new ArrayList<>(scored.subList(0, Math.min(8, scored.size())));
     }
 
-    private List<PlateCandidate> detectByEdges(BufferedImage image) {
+    // Sem ROI processa a imagem inteira; com ROI, apenas o recorte de cada zona
+    private List<PlateCandidate> detectByEdges(GrayImage gray, RegionOfInterest.Zones zones, ProcessingDeadline deadline) {
+        if (zones == null) {
+            return detectByEdges(gray, 0, 0, deadline);
+        }
+
         List<PlateCandidate> candidates = new ArrayList<>();
+        for (Rectangle area : zones.getBounds()) {
+            if (deadline.isExpired()) break;
+            candidates.addAll(detectByEdges(gray.crop(area), area.x, area.y, deadline));
+        }
+        return candidates;
+    }
 
-        try {
-            // Converter para escala de cinza
-            BufferedImage gray = convertToGrayscale(image);
+    // offsetX/offsetY: posição do recorte na imagem original, somada às regiões encontradas
+    private List<PlateCandidate> detectByEdges(GrayImage gray, int offsetX, int offsetY, ProcessingDeadline deadline) {
+        List<PlateCandidate> candidates = new ArrayList<>();
 
+        try {
             // Aplicar filtro para reduzir ruído
-            BufferedImage smoothed = applyGaussianBlur(gray, 2);
+            GrayImage smoothed = GrayOps.boxBlur(gray, 2);
 
             // Detectar bordas usando operador Sobel
-            BufferedImage edges = applySobelEdgeDetection(smoothed);
-
-            // Aplicar threshold para binarizar
-            BufferedImage binary = applyAdaptiveThreshold(edges);
+            GrayImage edges = applySobelEdgeDetection(smoothed);
+
+            // Binarizar pelas bordas fortes da própria imagem. O threshold adaptativo não serve
+            // aqui: no mapa de bordas o fundo liso (0) fica acima da média local menos o offset
+            ImageStats edgeStats = calculateImageStats(edges);
+            int edgeThreshold = (int) Math.max(EDGE_MIN_THRESHOLD,
+                    Math.min(200, edgeStats.mean + 1.5 * Math.sqrt(edgeStats.variance)));
+            GrayImage binary = new GrayImage(edges.getWidth(), edges.getHeight());
+            GrayOps.threshold(edges, binary, edgeThreshold);
+
+            // Fechamento horizontal junta os caracteres num bloco único; a abertura remove
+            // traços finos (fios, bordas de carroceria) que sobram depois dele
+            int closeRadius = Math.max(EDGE_CLOSE_MIN_RADIUS, gray.getWidth() / EDGE_CLOSE_WIDTH_DIVISOR);
+            Morphology.close(binary, binary, closeRadius, 1);
+            Morphology.open(binary, binary, 2, 2);
 
             // Encontrar regiões conectadas
             List<Rectangle> regions = findConnectedRegions(binary);
 
+            IntegralImage edgeIntegral = null;
             for (Rectangle region : regions) {
+                if (deadline.isExpired()) break;
                 if (isValidPlateRegion(region)) {
-                    double score = calculateEdgeScore(edges, region);
+                    if (edgeIntegral == null) {
+                        edgeIntegral = IntegralImage.build(edges, BRIGHT_PIXEL_THRESHOLD, EDGE_GRADIENT_THRESHOLD);
+                    }
+                    double score = calculateEdgeScore(edgeIntegral, region);
+                    region.translate(offsetX, offsetY);
                     candidates.add(new PlateCandidate(region, score));
                 }
             }
@@ -160,68 +348,256 @@ public class LicensePlateDetector {
         return candidates;
     }
 
-    private List<PlateCandidate> detectByColor(BufferedImage image) {
-        List<PlateCandidate> candidates = new ArrayList<>();
+    private List<PlateCandidate> detectByColor(GrayImage gray, IntegralImage integral, RegionOfInterest.Zones zones,
+                                               ProcessingDeadline deadline) {
+        // Sem ROI: focar na parte inferior da imagem onde placas geralmente aparecem
+        List<Rectangle> areas = zones != null ? zones.getBounds() : List.of(defaultColorArea(gray));
+
+        if (pyramidEnabled) {
+            return detectByColorPyramid(gray, integral, areas, deadline);
+        }
 
         try {
-            int width = image.getWidth();
-            int height = image.getHeight();
+            List<PlateCandidate> candidates = new ArrayList<>();
+            for (Rectangle area : areas) {
+                int span = area.height - MIN_PLATE_HEIGHT;
+                int rows = span > 0 ? (span + COLOR_SCAN_STEP_Y - 1) / COLOR_SCAN_STEP_Y : 0;
+
+                // Linhas da varredura divididas em faixas no pool fork/join; o merge segue a ordem das faixas
+                if (parallelDetection) {
+                    candidates.addAll(detectionPool.invoke(new ColorScanTask(integral, area, 0, rows, deadline)));
+                } else {
+                    candidates.addAll(scanColorRows(integral, area, 0, rows, deadline));
+                }
+            }
+            return candidates;
 
-            // Focar na parte inferior da imagem onde placas geralmente aparecem
-            int startY = (int) (height * 0.5);
-            int endY = (int) (height * 0.95);
+        } catch (Exception e) {
+            System.err.println("[DETECTOR] Erro na detecção por cor: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private static Rectangle defaultColorArea(GrayImage gray) {
+        int startY = (int) (gray.getHeight() * 0.5);
+        int endY = (int) (gray.getHeight() * 0.95);
+        return new Rectangle(0, startY, gray.getWidth(), endY - startY);
+    }
+
+    // Varre as linhas [firstRow, lastRow) da grade, onde a linha i fica em y = area.y + i * passo.
+    // As janelas começam dentro da área e podem se estender até o limite da imagem.
+    // O prazo é verificado a cada linha da grade
+    private List<PlateCandidate> scanColorRows(IntegralImage integral, Rectangle area, int firstRow, int lastRow,
+                                               ProcessingDeadline deadline) {
+        List<PlateCandidate> candidates = new ArrayList<>();
+        int width = integral.getWidth();
+        int height = integral.getHeight();
+        int endX = area.x + area.width - MIN_PLATE_WIDTH;
+
+        for (int row = firstRow; row < lastRow; row++) {
+            if (deadline.isExpired()) break;
+            int y = area.y + row * COLOR_SCAN_STEP_Y;
 
             // Varrer a imagem procurando por regiões com características de placa
-            int stepX = 15;
-            int stepY = 10;
-
-            for (int y = startY; y < endY - MIN_PLATE_HEIGHT; y += stepY) {
-                for (int x = 0; x < width - MIN_PLATE_WIDTH; x += stepX) {
-
-                    // Testar diferentes tamanhos
-                    int[] widths = {180, 220, 260, 300, 340};
-                    int[] heights = {60, 70, 80, 90};
-
-                    for (int w : widths) {
-                        for (int h : heights) {
-                            if (x + w <= width && y + h <= height) {
-                                Rectangle region = new Rectangle(x, y, w, h);
-
-                                if (isValidPlateRegion(region)) {
-                                    double score = calculateColorScore(image, region);
-                                    if (score > 0.3) {
-                                        candidates.add(new PlateCandidate(region, score));
-                                    }
+            for (int x = area.x; x < endX; x += COLOR_SCAN_STEP_X) {
+
+                // Testar diferentes tamanhos
+                for (int w : COLOR_SCAN_WIDTHS) {
+                    for (int h : COLOR_SCAN_HEIGHTS) {
+                        if (x + w <= width && y + h <= height) {
+                            Rectangle region = new Rectangle(x, y, w, h);
+
+                            if (isValidPlateRegion(region)) {
+                                double score = calculateColorScore(integral, region);
+                                if (score > 0.3) {
+                                    candidates.add(new PlateCandidate(region, score));
                                 }
                             }
                         }
                     }
                 }
             }
+        }
+
+        return candidates;
+    }
+
+    // Busca no nível mais grosso da pirâmide (largura entre coarse-width e o dobro), com janelas
+    // proporcionais à imagem, e refinamento na resolução original apenas das melhores regiões.
+    // O custo fica praticamente constante por imagem e placas próximas ou distantes entram na mesma grade
+    private List<PlateCandidate> detectByColorPyramid(GrayImage gray, IntegralImage integral, List<Rectangle> areas,
+                                                      ProcessingDeadline deadline) {
+        try {
+            ImagePyramid pyramid = ImagePyramid.build(gray, pyramidCoarseWidth);
+            int level = pyramid.getCoarsestLevel();
+            int scale = pyramid.scaleOf(level);
+            IntegralImage coarse = level == 0 ? integral
+                    : IntegralImage.build(pyramid.getCoarsest(), BRIGHT_PIXEL_THRESHOLD, EDGE_GRADIENT_THRESHOLD);
+
+            List<PlateCandidate> coarseHits = new ArrayList<>();
+            for (Rectangle area : areas) {
+                Rectangle coarseArea = new Rectangle(area.x / scale, area.y / scale,
+                        Math.max(1, area.width / scale), Math.max(1, area.height / scale));
+                coarseHits.addAll(scanPyramidLevel(coarse, coarseArea, deadline));
+            }
+            List<PlateCandidate> best = suppressOverlapping(coarseHits, pyramidRefineTop);
+
+            List<PlateCandidate> candidates = new ArrayList<>(best.size());
+            for (PlateCandidate hit : best) {
+                if (deadline.isExpired()) break;
+                PlateCandidate refined = refineAtBase(integral, pyramid.toBase(hit.rectangle, level), scale);
+                if (refined != null) {
+                    candidates.add(refined);
+                }
+            }
+
+            System.out.println("[DETECTOR] Pirâmide: nível " + level + " (" + coarse.getWidth() + "x" + coarse.getHeight() +
+                    "), " + coarseHits.size() + " janelas aceitas, " + candidates.size() + " refinadas");
+            return candidates;
 
         } catch (Exception e) {
-            System.err.println("[DETECTOR] Erro na detecção por cor: " + e.getMessage());
+            System.err.println("[DETECTOR] Erro na detecção por cor (pirâmide): " + e.getMessage());
+            return new ArrayList<>();
         }
+    }
 
-        return candidates;
+    // Janela deslizante no nível reduzido: janelas inteiras na imagem com o centro dentro da área.
+    // O tamanho das janelas segue a largura da imagem, não a da área
+    private List<PlateCandidate> scanPyramidLevel(IntegralImage coarse, Rectangle area, ProcessingDeadline deadline) {
+        List<PlateCandidate> hits = new ArrayList<>();
+        int width = coarse.getWidth();
+        int height = coarse.getHeight();
+
+        int minWidth = Math.max(8, (int) Math.round(width * PYRAMID_MIN_PLATE_FRACTION));
+        int maxWidth = (int) Math.round(width * PYRAMID_MAX_PLATE_FRACTION);
+
+        for (double w = minWidth; w <= maxWidth; w *= PYRAMID_WIDTH_GROWTH) {
+            int windowWidth = (int) Math.round(w);
+            int stepX = Math.max(1, windowWidth / 6);
+
+            for (double aspect : PYRAMID_ASPECT_RATIOS) {
+                int windowHeight = Math.max(3, (int) Math.round(windowWidth / aspect));
+                int stepY = Math.max(1, windowHeight / 3);
+
+                int firstY = Math.max(0, area.y - windowHeight / 2);
+                int lastY = Math.min(height - windowHeight, area.y + area.height - windowHeight / 2);
+                int firstX = Math.max(0, area.x - windowWidth / 2);
+                int lastX = Math.min(width - windowWidth, area.x + area.width - windowWidth / 2);
+
+                for (int y = firstY; y <= lastY; y += stepY) {
+                    if (deadline.isExpired()) return hits;
+
+                    for (int x = firstX; x <= lastX; x += stepX) {
+                        Rectangle window = new Rectangle(x, y, windowWidth, windowHeight);
+                        double score = calculatePyramidScore(coarse, window);
+                        if (score > 0) {
+                            hits.add(new PlateCandidate(window, score));
+                        }
+                    }
+                }
+            }
+        }
+        return hits;
+    }
+
+    // Mesmo critério de cor da varredura original (fração de claros entre 0.4 e 0.8), exigindo
+    // também transições horizontais de caracteres para descartar áreas claras lisas
+    private double calculatePyramidScore(IntegralImage integral, Rectangle region) {
+        double whiteRatio = integral.brightRatio(region);
+        if (whiteRatio <= 0.4 || whiteRatio >= 0.8) return 0;
+
+        double edgeRatio = integral.edgeRatio(region);
+        if (edgeRatio < PYRAMID_MIN_EDGE_RATIO) return 0;
+
+        return whiteRatio * 0.5 + Math.min(1.0, edgeRatio * 4) * 0.5;
     }
 
-    private List<PlateCandidate> detectBySystematicScan(BufferedImage image) {
+    // Mantém as melhores janelas que não se sobrepõem (IoU acima de 0.3 conta como a mesma placa)
+    private List<PlateCandidate> suppressOverlapping(List<PlateCandidate> hits, int limit) {
+        hits.sort((a, b) -> Double.compare(b.score, a.score));
+        List<PlateCandidate> kept = new ArrayList<>();
+
+        for (PlateCandidate hit : hits) {
+            if (kept.size() >= limit) break;
+
+            boolean overlaps = false;
+            for (PlateCandidate existing : kept) {
+                if (intersectionOverUnion(hit.rectangle, existing.rectangle) > 0.3) {
+                    overlaps = true;
+                    break;
+                }
+            }
+            if (!overlaps) {
+                kept.add(hit);
+            }
+        }
+        return kept;
+    }
+
+    // Ajuste fino na resolução original: deslocamentos de até um pixel do nível grosso e
+    // variações de ±10% no tamanho, avaliados em O(1) pela tabela integral da imagem inteira
+    private PlateCandidate refineAtBase(IntegralImage integral, Rectangle region, int scale) {
+        int step = Math.max(1, scale / 2);
+        Rectangle best = null;
+        double bestScore = 0;
+
+        for (double factor : new double[]{0.9, 1.0, 1.1}) {
+            int w = (int) Math.round(region.width * factor);
+            int h = (int) Math.round(region.height * factor);
+            int baseX = region.x + (region.width - w) / 2;
+            int baseY = region.y + (region.height - h) / 2;
+
+            for (int dy = -scale; dy <= scale; dy += step) {
+                for (int dx = -scale; dx <= scale; dx += step) {
+                    int x = baseX + dx, y = baseY + dy;
+                    if (x < 0 || y < 0 || x + w > integral.getWidth() || y + h > integral.getHeight()) continue;
+
+                    Rectangle candidate = new Rectangle(x, y, w, h);
+                    double score = calculatePyramidScore(integral, candidate);
+                    if (score > bestScore) {
+                        bestScore = score;
+                        best = candidate;
+                    }
+                }
+            }
+        }
+
+        if (best == null || best.width < PYRAMID_MIN_REFINED_WIDTH || best.height < PYRAMID_MIN_REFINED_HEIGHT) {
+            return null;
+        }
+        double aspectRatio = (double) best.width / best.height;
+        if (aspectRatio < MIN_ASPECT_RATIO || aspectRatio > MAX_ASPECT_RATIO) {
+            return null;
+        }
+        return new PlateCandidate(best, bestScore);
+    }
+
+    private static double intersectionOverUnion(Rectangle a, Rectangle b) {
+        Rectangle intersection = a.intersection(b);
+        if (intersection.isEmpty()) return 0;
+        double overlap = (double) intersection.width * intersection.height;
+        double union = (double) a.width * a.height + (double) b.width * b.height - overlap;
+        return union > 0 ? overlap / union : 0;
+    }
+
+    private List<PlateCandidate> detectBySystematicScan(BufferedImage image, GrayImage gray, RegionOfInterest.Zones zones,
+                                                        ProcessingDeadline deadline) {
         List<PlateCandidate> candidates = new ArrayList<>();
 
         try {
             int width = image.getWidth();
             int height = image.getHeight();
 
-            // Definir regiões de interesse baseadas em onde placas tipicamente aparecem
-            Rectangle[] rois = {
+            // Zonas configuradas para a câmera/requisição ou, sem ROI, regiões onde placas tipicamente aparecem
+            List<Rectangle> rois = zones != null ? zones.getBounds() : List.of(
                     new Rectangle(0, (int)(height * 0.6), width, (int)(height * 0.35)), // Parte inferior
                     new Rectangle(0, (int)(height * 0.45), width, (int)(height * 0.4)),  // Centro-inferior
                     new Rectangle(0, (int)(height * 0.3), width, (int)(height * 0.5))   // Centro
-            };
+            );
 
             for (Rectangle roi : rois) {
-                BufferedImage roiImage = image.getSubimage(roi.x, roi.y, roi.width, roi.height);
+                if (deadline.isExpired()) break;
+                GrayImage roiImage = gray.crop(roi);
 
                 // Análise estatística da região
                 ImageStats stats = calculateImageStats(roiImage);
@@ -230,6 +606,8 @@ public class LicensePlateDetector {
                 List<Rectangle> subRegions = findHighContrastRegions(roiImage, stats);
 
                 for (Rectangle subRegion : subRegions) {
+                    if (deadline.isExpired()) break;
+
                     // Converter coordenadas de volta para imagem original
                     Rectangle globalRegion = new Rectangle(
                             roi.x + subRegion.x,
@@ -239,9 +617,10 @@ public class LicensePlateDetector {
                     );
 
                     if (isValidPlateRegion(globalRegion)) {
-                        double score = calculateTextScore(image, globalRegion);
+                        GrayImage processed = preprocessRegion(image, globalRegion);
+                        double score = calculateTextScore(processed);
                         if (score > 0.4) {
-                            candidates.add(new PlateCandidate(globalRegion, score));
+                            candidates.add(new PlateCandidate(globalRegion, score, processed));
                         }
                     }
                 }
@@ -254,15 +633,112 @@ public class LicensePlateDetector {
         return candidates;
     }
 
-    private PlateDetectionResult analyzeCandidate(BufferedImage image, Rectangle candidate) {
+    private PlateDetectionResult analyzeCandidatesSequentially(List<ScoredCandidate> candidates, int from,
+                                                               ProcessingDeadline deadline) {
+        for (int i = from; i < candidates.size(); i++) {
+            if (deadline.isExpired()) {
+                System.out.println("[DETECTOR] Prazo esgotado antes do candidato " + (i+1));
+                break;
+            }
+            ScoredCandidate candidate = candidates.get(i);
+            Rectangle region = candidate.rectangle;
+            System.out.println("[DETECTOR] Analisando candidato " + (i+1) + ": " +
+                    region.x + "," + region.y + " " + region.width + "x" + region.height +
+                    " (score " + String.format("%.3f", candidate.score) + ")");
+
+            PlateDetectionResult result = analyzeCandidate(candidate, false);
+            if (result.isFound()) {
+                return result;
+            }
+        }
+
+        return new PlateDetectionResult(false, null, null, null);
+    }
+
+    // OCR dos K melhores candidatos em paralelo no speculativeOcrExecutor (cada tarefa usa uma instância do pool).
+    // FIRST_VALID aceita a primeira placa válida que terminar; HIGHEST_CONFIDENCE espera todas e
+    // fica com a de maior confiança, salvo se alguma atingir a confiança de aceite imediato.
+    // Ao resolver, as tarefas ainda na fila são canceladas
+    private PlateDetectionResult analyzeCandidatesSpeculatively(List<ScoredCandidate> candidates,
+                                                                ProcessingDeadline deadline) {
+        int k = Math.min(Math.max(1, speculativeTopK), candidates.size());
+        boolean withConfidence = resolutionPolicy == OcrResolutionPolicy.HIGHEST_CONFIDENCE;
+        System.out.println("[DETECTOR] OCR especulativo dos " + k + " melhores candidatos (" + resolutionPolicy + ")");
+
+        AtomicBoolean resolved = new AtomicBoolean(false);
+        CompletionService<PlateDetectionResult> completion = new ExecutorCompletionService<>(speculativeOcrExecutor);
+        List<Future<PlateDetectionResult>> inFlight = new ArrayList<>(k);
+
+        for (int i = 0; i < k; i++) {
+            ScoredCandidate candidate = candidates.get(i);
+            inFlight.add(completion.submit(() -> resolved.get() || deadline.isExpired()
+                    ? new PlateDetectionResult(false, null, null, null)
+                    : analyzeCandidate(candidate, withConfidence)));
+        }
+
+        PlateDetectionResult best = null;
         try {
-            // Extrair e preprocessar região da placa
-            BufferedImage plateRegion = image.getSubimage(candidate.x, candidate.y, candidate.width, candidate.height);
-            BufferedImage processed = preprocessForOCR(plateRegion);
+            for (int done = 0; done < k; done++) {
+                // Espera limitada pelo prazo: ao vencer fica com o melhor resultado até aqui
+                Future<PlateDetectionResult> next = completion.poll(Math.min(deadline.remainingMs(), Integer.MAX_VALUE),
+                        TimeUnit.MILLISECONDS);
+                if (next == null) {
+                    System.out.println("[DETECTOR] Prazo esgotado no OCR especulativo");
+                    break;
+                }
 
-            // Aplicar OCR
-            String text = performOCR(processed);
-            System.out.println("[DETECTOR] OCR resultado bruto: '" + text + "'");
+                PlateDetectionResult result;
+                try {
+                    result = next.get();
+                } catch (ExecutionException e) {
+                    System.err.println("[DETECTOR] Erro no OCR especulativo: " + e.getCause());
+                    continue;
+                }
+
+                if (!result.isFound()) continue;
+
+                if (!withConfidence) {
+                    best = result;
+                    break;
+                }
+
+                if (best == null || result.getConfidence() > best.getConfidence()) {
+                    best = result;
+                }
+                if (best.getConfidence() >= earlyAcceptConfidence) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("[DETECTOR] OCR especulativo interrompido");
+        } finally {
+            // Tarefas já em execução terminam a chamada nativa atual; as da fila não chegam a rodar
+            resolved.set(true);
+            int cancelled = 0;
+            for (Future<PlateDetectionResult> future : inFlight) {
+                if (future.cancel(false)) cancelled++;
+            }
+            if (cancelled > 0) {
+                System.out.println("[DETECTOR] " + cancelled + " OCR(s) especulativo(s) cancelado(s)");
+            }
+        }
+
+        if (best != null) {
+            return best;
+        }
+
+        // Nenhum dos K resultou em placa: segue sequencialmente com os demais candidatos
+        return analyzeCandidatesSequentially(candidates, k, deadline);
+    }
+
+    private PlateDetectionResult analyzeCandidate(ScoredCandidate candidate, boolean withConfidence) {
+        try {
+            // Aplicar OCR sobre o recorte pré-processado durante o scoring
+            OcrReading reading = performOCR(candidate.processed.toBufferedImage(), withConfidence);
+            String text = reading != null ? reading.text : null;
+            System.out.println("[DETECTOR] OCR resultado bruto: '" + text + "'" +
+                    (reading != null && reading.confidence >= 0 ? " (confiança " + reading.confidence + ")" : ""));
 
             if (text != null && text.length() >= 6) {
                 // Limpar e corrigir texto
@@ -271,7 +747,7 @@ public class LicensePlateDetector {
 
                 if (isValidPlateText(cleanText)) {
                     String format = detectPlateFormat(cleanText);
-                    return new PlateDetectionResult(true, cleanText, format, candidate);
+                    return new PlateDetectionResult(true, cleanText, format, candidate.rectangle, reading.confidence);
                 }
             }
 
@@ -282,51 +758,77 @@ public class LicensePlateDetector {
         return new PlateDetectionResult(false, null, null, null);
     }
 
-    private BufferedImage preprocessForOCR(BufferedImage plateRegion) {
+    private GrayImage preprocessRegion(BufferedImage image, Rectangle region) {
+        return preprocessForOCR(image.getSubimage(region.x, region.y, region.width, region.height));
+    }
+
+    private GrayImage preprocessForOCR(BufferedImage plateRegion) {
         try {
             // 1. Redimensionar para tamanho ótimo para OCR
             BufferedImage resized = resizeImage(plateRegion, 350, 100);
 
-            // 2. Converter para escala de cinza
-            BufferedImage gray = convertToGrayscale(resized);
+            // 2. Converter para escala de cinza (buffer de bytes, sem alocação por pixel)
+            GrayImage gray = GrayImage.fromBufferedImage(resized);
 
-            // 3. Aplicar filtro bilateral para reduzir ruído mantendo bordas
-            BufferedImage filtered = applyGaussianBlur(gray, 1);
+            // 3. Suavizar para reduzir ruído
+            GrayImage filtered = GrayOps.boxBlur(gray, 1);
 
             // 4. Equalização de histograma para melhorar contraste
-            BufferedImage equalized = equalizeHistogram(filtered);
+            GrayImage equalized = equalizeHistogram(filtered);
 
-            // 5. Threshold adaptativo para binarização
-            BufferedImage binary = applyAdaptiveThreshold(equalized);
+            // 5. Threshold adaptativo para binarização (in-place)
+            adaptiveThreshold.apply(equalized, equalized);
 
             // 6. Operações morfológicas para limpar
-            BufferedImage cleaned = applyMorphologicalCleaning(binary);
+            GrayImage cleaned = applyMorphologicalCleaning(equalized);
 
             // 7. Verificar se precisa inverter (texto deve ser escuro em fundo claro para Tesseract)
             if (shouldInvertImage(cleaned)) {
-                cleaned = invertImage(cleaned);
+                GrayOps.invertInPlace(cleaned);
             }
 
             return cleaned;
 
         } catch (Exception e) {
             System.err.println("[DETECTOR] Erro no preprocessing: " + e.getMessage());
-            return plateRegion; // Fallback para imagem original
+            return GrayImage.fromBufferedImage(plateRegion); // Fallback para imagem original
         }
     }
 
-    private String performOCR(BufferedImage image) {
-        if (tesseract == null) {
-            System.err.println("[DETECTOR] Tesseract não inicializado");
-            return null;
-        }
-
+    private OcrReading performOCR(BufferedImage image, boolean withConfidence) {
+        Tesseract tesseract = null;
         try {
+            tesseract = tesseractPool.borrow();
+            if (tesseract == null) {
+                System.err.println("[DETECTOR] Nenhuma instância Tesseract disponível");
+                return null;
+            }
+
+            if (withConfidence) {
+                // Mesma passada de reconhecimento, mas palavra a palavra para obter a confiança
+                List<Word> words = tesseract.getWords(image, ITessAPI.TessPageIteratorLevel.RIL_WORD);
+                StringBuilder text = new StringBuilder();
+                double weightedConfidence = 0;
+                for (Word word : words) {
+                    String clean = word.getText() != null ? word.getText().replaceAll("[^A-Z0-9]", "") : "";
+                    text.append(clean);
+                    weightedConfidence += word.getConfidence() * clean.length();
+                }
+                double confidence = text.length() > 0 ? weightedConfidence / text.length() : 0;
+                return new OcrReading(text.toString(), confidence);
+            }
+
             String result = tesseract.doOCR(image);
-            return result != null ? result.replaceAll("[^A-Z0-9]", "").trim() : null;
+            return result != null ? new OcrReading(result.replaceAll("[^A-Z0-9]", "").trim(), -1) : null;
         } catch (TesseractException e) {
             System.err.println("[DETECTOR] Erro no OCR: " + e.getMessage());
             return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("[DETECTOR] OCR interrompido aguardando Tesseract");
+            return null;
+        } finally {
+            tesseractPool.release(tesseract);
         }
     }
 
@@ -401,14 +903,6 @@ public class LicensePlateDetector {
 
     // Métodos auxiliares de processamento de imagem (implementação simplificada)
 
-    private BufferedImage convertToGrayscale(BufferedImage image) {
-        BufferedImage gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
-        Graphics2D g2d = gray.createGraphics();
-        g2d.drawImage(image, 0, 0, null);
-        g2d.dispose();
-        return gray;
-    }
-
     private BufferedImage resizeImage(BufferedImage image, int targetWidth, int targetHeight) {
         BufferedImage resized = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
         Graphics2D g2d = resized.createGraphics();
@@ -418,94 +912,9 @@ public class LicensePlateDetector {
         return resized;
     }
 
-    private BufferedImage applyGaussianBlur(BufferedImage image, int radius) {
-        // Implementação simplificada de blur gaussiano
-        BufferedImage blurred = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
-
-        for (int y = radius; y < image.getHeight() - radius; y++) {
-            for (int x = radius; x < image.getWidth() - radius; x++) {
-                int totalR = 0, totalG = 0, totalB = 0, count = 0;
-
-                for (int dy = -radius; dy <= radius; dy++) {
-                    for (int dx = -radius; dx <= radius; dx++) {
-                        Color color = new Color(image.getRGB(x + dx, y + dy));
-                        totalR += color.getRed();
-                        totalG += color.getGreen();
-                        totalB += color.getBlue();
-                        count++;
-                    }
-                }
-
-                Color avgColor = new Color(totalR / count, totalG / count, totalB / count);
-                blurred.setRGB(x, y, avgColor.getRGB());
-            }
-        }
-
-        return blurred;
-    }
-
-    private BufferedImage applyAdaptiveThreshold(BufferedImage image) {
-        BufferedImage binary = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_BINARY);
-
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                Color color = new Color(image.getRGB(x, y));
-                int gray = (color.getRed() + color.getGreen() + color.getBlue()) / 3;
-
-                // Threshold adaptativo baseado na média local
-                int localMean = calculateLocalMean(image, x, y, 15);
-                int pixel = gray > localMean - 10 ? 255 : 0;
-
-                binary.setRGB(x, y, new Color(pixel, pixel, pixel).getRGB());
-            }
-        }
-
-        return binary;
-    }
-
-    private int calculateLocalMean(BufferedImage image, int centerX, int centerY, int windowSize) {
-        int sum = 0, count = 0;
-        int halfWindow = windowSize / 2;
-
-        for (int y = Math.max(0, centerY - halfWindow); y < Math.min(image.getHeight(), centerY + halfWindow); y++) {
-            for (int x = Math.max(0, centerX - halfWindow); x < Math.min(image.getWidth(), centerX + halfWindow); x++) {
-                Color color = new Color(image.getRGB(x, y));
-                sum += (color.getRed() + color.getGreen() + color.getBlue()) / 3;
-                count++;
-            }
-        }
-
-        return count > 0 ? sum / count : 128;
-    }
-
-    private boolean shouldInvertImage(BufferedImage image) {
-        int whitePixels = 0, totalPixels = 0;
-
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                Color color = new Color(image.getRGB(x, y));
-                int brightness = (color.getRed() + color.getGreen() + color.getBlue()) / 3;
-                if (brightness > 128) whitePixels++;
-                totalPixels++;
-            }
-        }
-
+    private boolean shouldInvertImage(GrayImage image) {
         // Se menos de 50% dos pixels são brancos, provavelmente precisa inverter
-        return (double) whitePixels / totalPixels < 0.5;
-    }
-
-    private BufferedImage invertImage(BufferedImage image) {
-        BufferedImage inverted = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
-
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                Color color = new Color(image.getRGB(x, y));
-                Color invColor = new Color(255 - color.getRed(), 255 - color.getGreen(), 255 - color.getBlue());
-                inverted.setRGB(x, y, invColor.getRGB());
-            }
-        }
-
-        return inverted;
+        return GrayOps.fractionAbove(image, 128) < 0.5;
     }
 
     // Métodos auxiliares para validação e scoring (implementações simplificadas)
@@ -521,55 +930,35 @@ public class LicensePlateDetector {
                 region.width >= MIN_PLATE_WIDTH && region.height >= MIN_PLATE_HEIGHT;
     }
 
-    private double calculateRegionScore(BufferedImage image, Rectangle region) {
+    private ScoredCandidate scoreCandidate(BufferedImage image, IntegralImage integral, PlateCandidate candidate,
+                                           ProcessingDeadline deadline) {
+        // O pré-processamento do recorte é a parte cara do scoring
+        if (deadline.isExpired()) {
+            return null;
+        }
+        Rectangle region = candidate.rectangle;
+
+        // Recorte pré-processado: reaproveitado da detecção quando disponível e depois pelo OCR
+        GrayImage processed = candidate.processed != null ? candidate.processed : preprocessRegion(image, region);
+
         // Score baseado em múltiplos fatores
-        double edgeScore = calculateEdgeScore(image, region);
-        double colorScore = calculateColorScore(image, region);
+        double edgeScore = calculateEdgeScore(integral, region);
+        double colorScore = calculateColorScore(integral, region);
         double positionScore = calculatePositionScore(image, region);
-        double textScore = calculateTextScore(image, region);
+        double textScore = calculateTextScore(processed);
 
-        return edgeScore * 0.3 + colorScore * 0.3 + positionScore * 0.2 + textScore * 0.2;
+        double score = edgeScore * 0.3 + colorScore * 0.3 + positionScore * 0.2 + textScore * 0.2;
+        return new ScoredCandidate(region, score, processed);
     }
 
-    private double calculateEdgeScore(BufferedImage image, Rectangle region) {
-        // Implementação simplificada - contar pixels de borda na região
-        int edges = 0, total = 0;
-
-        for (int y = region.y; y < Math.min(region.y + region.height, image.getHeight() - 1); y++) {
-            for (int x = region.x; x < Math.min(region.x + region.width, image.getWidth() - 1); x++) {
-                total++;
-                Color current = new Color(image.getRGB(x, y));
-                Color next = new Color(image.getRGB(x + 1, y));
-
-                int currentBrightness = (current.getRed() + current.getGreen() + current.getBlue()) / 3;
-                int nextBrightness = (next.getRed() + next.getGreen() + next.getBlue()) / 3;
-
-                if (Math.abs(currentBrightness - nextBrightness) > 50) {
-                    edges++;
-                }
-            }
-        }
-
-        return total > 0 ? (double) edges / total : 0;
+    private double calculateEdgeScore(IntegralImage integral, Rectangle region) {
+        // Proporção de transições horizontais fortes na região
+        return integral.edgeRatio(region);
     }
 
-    private double calculateColorScore(BufferedImage image, Rectangle region) {
+    private double calculateColorScore(IntegralImage integral, Rectangle region) {
         // Score baseado na presença de cores típicas de placa (branco/cinza claro)
-        int whiteGrayPixels = 0, total = 0;
-
-        for (int y = region.y; y < Math.min(region.y + region.height, image.getHeight()); y++) {
-            for (int x = region.x; x < Math.min(region.x + region.width, image.getWidth()); x++) {
-                total++;
-                Color color = new Color(image.getRGB(x, y));
-                int brightness = (color.getRed() + color.getGreen() + color.getBlue()) / 3;
-
-                if (brightness > 180) { // Pixels brancos/claros
-                    whiteGrayPixels++;
-                }
-            }
-        }
-
-        double whiteRatio = total > 0 ? (double) whiteGrayPixels / total : 0;
+        double whiteRatio = integral.brightRatio(region);
         return whiteRatio > 0.4 && whiteRatio < 0.8 ? whiteRatio : 0.3;
     }
 
@@ -587,12 +976,9 @@ public class LicensePlateDetector {
         }
     }
 
-    private double calculateTextScore(BufferedImage image, Rectangle region) {
+    private double calculateTextScore(GrayImage processed) {
         // Score baseado na presença de padrões semelhantes a texto
         try {
-            BufferedImage subImage = image.getSubimage(region.x, region.y, region.width, region.height);
-            BufferedImage processed = preprocessForOCR(subImage);
-
             // Contar transições horizontais (característica de texto)
             int transitions = 0, totalLines = 0;
 
@@ -601,8 +987,7 @@ public class LicensePlateDetector {
                 boolean lastWasWhite = false;
 
                 for (int x = 0; x < processed.getWidth(); x++) {
-                    Color color = new Color(processed.getRGB(x, y));
-                    boolean isWhite = color.getRed() > 128;
+                    boolean isWhite = processed.get(x, y) > 128;
 
                     if (isWhite != lastWasWhite) {
                         transitions++;
@@ -619,22 +1004,105 @@ public class LicensePlateDetector {
         }
     }
 
-    // Implementações simplificadas dos métodos restantes
-    private BufferedImage applySobelEdgeDetection(BufferedImage image) { return image; }
-    private List<Rectangle> findConnectedRegions(BufferedImage image) { return new ArrayList<>(); }
-    private BufferedImage equalizeHistogram(BufferedImage image) { return image; }
-    private BufferedImage applyMorphologicalCleaning(BufferedImage image) { return image; }
-    private ImageStats calculateImageStats(BufferedImage image) { return new ImageStats(); }
-    private List<Rectangle> findHighContrastRegions(BufferedImage image, ImageStats stats) { return new ArrayList<>(); }
+    private GrayImage applySobelEdgeDetection(GrayImage image) {
+        return GrayOps.sobel(image);
+    }
+
+    // Componentes pequenos demais para conter uma placa são descartados já na rotulação
+    private List<Rectangle> findConnectedRegions(GrayImage image) {
+        return ConnectedComponents.boundingBoxes(image, MIN_PLATE_AREA_PIXELS / 4);
+    }
+
+    // Equaliza no próprio buffer: a imagem recebida é temporária do pré-processamento
+    private GrayImage equalizeHistogram(GrayImage image) {
+        GrayOps.equalizeHistogram(image, image);
+        return image;
+    }
+
+    // Abertura e fechamento 3x3 sobre a imagem binária: removem pontos isolados claros e escuros
+    // sem engrossar os traços dos caracteres (~8px na escala 350x100 do OCR)
+    private GrayImage applyMorphologicalCleaning(GrayImage image) {
+        Morphology.open(image, image, 1, 1);
+        Morphology.close(image, image, 1, 1);
+        return image;
+    }
 
-    private List<Rectangle> removeDuplicatesAndFilter(List<PlateCandidate> candidates) {
-        List<Rectangle> filtered = new ArrayList<>();
+    // Média, variância e entropia (bits) a partir do histograma, em uma única leitura da imagem
+    private ImageStats calculateImageStats(GrayImage image) {
+        ImageStats stats = new ImageStats();
+        int[] histogram = GrayOps.histogram(image);
+        long total = (long) image.getWidth() * image.getHeight();
+        if (total == 0) return stats;
+
+        double sum = 0, sumSquared = 0;
+        for (int value = 0; value < 256; value++) {
+            sum += (double) value * histogram[value];
+            sumSquared += (double) value * value * histogram[value];
+        }
+        stats.mean = sum / total;
+        stats.variance = Math.max(0, sumSquared / total - stats.mean * stats.mean);
+
+        double entropy = 0;
+        for (int count : histogram) {
+            if (count == 0) continue;
+            double p = (double) count / total;
+            entropy -= p * Math.log(p);
+        }
+        stats.entropy = entropy / Math.log(2);
+        return stats;
+    }
+
+    // Blocos com desvio padrão acima do da própria ROI (texto sobre fundo uniforme) viram uma
+    // máscara em escala reduzida; blocos vizinhos na horizontal são unidos e cada componente
+    // vira uma sub-região candidata
+    private List<Rectangle> findHighContrastRegions(GrayImage image, ImageStats stats) {
+        List<Rectangle> regions = new ArrayList<>();
+
+        // ROI quase uniforme (céu, asfalto): não há texto a procurar
+        if (stats.entropy < MIN_ROI_ENTROPY) {
+            return regions;
+        }
+
+        int columns = image.getWidth() / CONTRAST_BLOCK_SIZE;
+        int rows = image.getHeight() / CONTRAST_BLOCK_SIZE;
+        if (columns == 0 || rows == 0) {
+            return regions;
+        }
+
+        IntegralImage integral = IntegralImage.build(image, BRIGHT_PIXEL_THRESHOLD, EDGE_GRADIENT_THRESHOLD);
+        double minVariance = Math.pow(Math.max(MIN_BLOCK_STDDEV, Math.sqrt(stats.variance)), 2);
+
+        GrayImage mask = new GrayImage(columns, rows);
+        Rectangle block = new Rectangle(0, 0, CONTRAST_BLOCK_SIZE, CONTRAST_BLOCK_SIZE);
+        for (int by = 0; by < rows; by++) {
+            for (int bx = 0; bx < columns; bx++) {
+                block.setLocation(bx * CONTRAST_BLOCK_SIZE, by * CONTRAST_BLOCK_SIZE);
+                if (integral.variance(block) >= minVariance) {
+                    mask.set(bx, by, 255);
+                }
+            }
+        }
+
+        Morphology.close(mask, mask, 1, 0);
+
+        for (Rectangle component : ConnectedComponents.boundingBoxes(mask, 2)) {
+            regions.add(new Rectangle(
+                    component.x * CONTRAST_BLOCK_SIZE,
+                    component.y * CONTRAST_BLOCK_SIZE,
+                    component.width * CONTRAST_BLOCK_SIZE,
+                    component.height * CONTRAST_BLOCK_SIZE));
+        }
+        return regions;
+    }
+
+    private List<PlateCandidate> removeDuplicatesAndFilter(List<PlateCandidate> candidates) {
+        List<PlateCandidate> filtered = new ArrayList<>();
 
         for (PlateCandidate candidate : candidates) {
             boolean isDuplicate = false;
 
-            for (Rectangle existing : filtered) {
-                Rectangle intersection = candidate.rectangle.intersection(existing);
+            for (PlateCandidate existing : filtered) {
+                Rectangle intersection = candidate.rectangle.intersection(existing.rectangle);
                 double overlapArea = intersection.width * intersection.height;
                 double candidateArea = candidate.rectangle.width * candidate.rectangle.height;
                 double overlapRatio = overlapArea / candidateArea;
@@ -646,7 +1114,7 @@ public class LicensePlateDetector {
             }
 
             if (!isDuplicate) {
-                filtered.add(candidate.rectangle);
+                filtered.add(candidate);
             }
         }
 
@@ -657,13 +1125,78 @@ public class LicensePlateDetector {
     private static class PlateCandidate {
         Rectangle rectangle;
         double score;
+        GrayImage processed; // recorte pré-processado, quando a estratégia já o calculou
 
         PlateCandidate(Rectangle rectangle, double score) {
+            this(rectangle, score, null);
+        }
+
+        PlateCandidate(Rectangle rectangle, double score, GrayImage processed) {
             this.rectangle = rectangle;
             this.score = score;
+            this.processed = processed;
         }
     }
 
+    // Divide as linhas da varredura por cor ao meio até o tamanho da folha; junta esquerda + direita
+    private class ColorScanTask extends RecursiveTask<List<PlateCandidate>> {
+        private final IntegralImage integral;
+        private final Rectangle area;
+        private final int firstRow;
+        private final int lastRow;
+        private final ProcessingDeadline deadline;
+
+        ColorScanTask(IntegralImage integral, Rectangle area, int firstRow, int lastRow, ProcessingDeadline deadline) {
+            this.integral = integral;
+            this.area = area;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected List<PlateCandidate> compute() {
+            if (lastRow - firstRow <= COLOR_SCAN_ROWS_PER_TASK || deadline.isExpired()) {
+                return scanColorRows(integral, area, firstRow, lastRow, deadline);
+            }
+
+            int middle = (firstRow + lastRow) >>> 1;
+            ColorScanTask upper = new ColorScanTask(integral, area, firstRow, middle, deadline);
+            ColorScanTask lower = new ColorScanTask(integral, area, middle, lastRow, deadline);
+            lower.fork();
+
+            List<PlateCandidate> merged = upper.compute();
+            merged.addAll(lower.join());
+            return merged;
+        }
+    }
+
+    // Candidato com score composto e recorte para OCR calculados uma única vez por requisição.
+    // Opaco fora do detector: só é repassado da etapa de detecção para a de OCR
+    public static final class ScoredCandidate {
+        final Rectangle rectangle;
+        final double score;
+        final GrayImage processed;
+
+        ScoredCandidate(Rectangle rectangle, double score, GrayImage processed) {
+            this.rectangle = rectangle;
+            this.score = score;
+            this.processed = processed;
+        }
+    }
+
+    private static class OcrReading {
+        final String text;
+        final double confidence; // 0-100, ou -1 quando não calculada
+
+        OcrReading(String text, double confidence) {
+            this.text = text;
+            this.confidence = confidence;
+        }
+    }
+
+    public enum OcrResolutionPolicy { FIRST_VALID, HIGHEST_CONFIDENCE }
+
     private static class ImageStats {
         double mean, variance, entropy;
     }
@@ -673,17 +1206,24 @@ public class LicensePlateDetector {
         private final String plateText;
         private final String format;
         private final Rectangle coordinates;
+        private final double confidence; // confiança do OCR (0-100), ou -1 quando não calculada
 
         public PlateDetectionResult(boolean found, String plateText, String format, Rectangle coordinates) {
+            this(found, plateText, format, coordinates, -1);
+        }
+
+        public PlateDetectionResult(boolean found, String plateText, String format, Rectangle coordinates, double confidence) {
             this.found = found;
             this.plateText = plateText;
             this.format = format;
             this.coordinates = coordinates;
+            this.confidence = confidence;
         }
 
         public boolean isFound() { return found; }
         public String getPlateText() { return plateText; }
         public String getFormat() { return format; }
         public Rectangle getCoordinates() { return coordinates; }
+        public double getConfidence() { return confidence; }
     }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.example.licenseplate.service;
+
+import java.util.concurrent.TimeUnit;
+
+// Prazo e token de cancelamento de uma requisição. Os laços de geração de candidatos,
+// scoring, pré-processamento e OCR consultam isExpired() e encerram cedo, devolvendo o
+// melhor resultado obtido até ali. Seguro para leitura concorrente (fork/join, OCR especulativo)
+public final class ProcessingDeadline {
+
+    private static final ProcessingDeadline NONE = new ProcessingDeadline(Long.MAX_VALUE);
+
+    private final long timeoutMs;
+    private final long deadlineNanos;
+    private volatile boolean cancelled;
+
+    private ProcessingDeadline(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        this.deadlineNanos = timeoutMs == Long.MAX_VALUE
+                ? Long.MAX_VALUE
+                : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    public static ProcessingDeadline after(long timeoutMs) {
+        return new ProcessingDeadline(Math.max(0, timeoutMs));
+    }
+
+    // Sem prazo: usado por chamadas diretas ao detector fora do pipeline
+    public static ProcessingDeadline none() {
+        return NONE;
+    }
+
+    public boolean isExpired() {
+        return cancelled || (deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos >= 0);
+    }
+
+    public long remainingMs() {
+        if (cancelled) return 0;
+        if (deadlineNanos == Long.MAX_VALUE) return Long.MAX_VALUE;
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    public void cancel() {
+        if (this != NONE) {
+            cancelled = true;
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+}
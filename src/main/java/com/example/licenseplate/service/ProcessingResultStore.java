@@ -0,0 +1,173 @@
+package com.example.licenseplate.service;
+
+import com.example.licenseplate.dto.ProcessingResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Armazena os resultados consultados via /status com limite de entradas, limite de bytes
+// e TTL. A ordem de acesso do LinkedHashMap dá a política LRU; um sweeper agendado
+// remove as entradas expiradas
+@Component
+public class ProcessingResultStore {
+
+    // Custo fixo aproximado de um ProcessingResult sem imagem (objeto, strings e coordenadas)
+    private static final long BASE_ENTRY_BYTES = 512;
+
+    @Value("${plate.cache.max-size:1000}")
+    private int maxEntries;
+
+    @Value("${plate.cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    @Value("${plate.cache.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public void put(String processId, ProcessingResult result) {
+        Entry entry = new Entry(result, System.currentTimeMillis(), estimateSize(result));
+
+        synchronized (this) {
+            Entry previous = entries.put(processId, entry);
+            if (previous != null) {
+                currentBytes -= previous.sizeBytes;
+            }
+            currentBytes += entry.sizeBytes;
+            evictOverflow(processId);
+        }
+    }
+
+    public ProcessingResult get(String processId) {
+        synchronized (this) {
+            Entry entry = entries.get(processId);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+
+            if (isExpired(entry, System.currentTimeMillis())) {
+                removeEntry(processId);
+                expirations.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+
+            hits.incrementAndGet();
+            return entry.result;
+        }
+    }
+
+    public synchronized ProcessingResult remove(String processId) {
+        Entry removed = removeEntry(processId);
+        return removed != null ? removed.result : null;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelayString = "${plate.cache.cleanup-interval:600000}",
+            initialDelayString = "${plate.cache.cleanup-interval:600000}")
+    public void evictExpired() {
+        int removed = 0;
+        int remaining;
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next().getValue();
+                if (isExpired(entry, now)) {
+                    iterator.remove();
+                    currentBytes -= entry.sizeBytes;
+                    removed++;
+                }
+            }
+            remaining = entries.size();
+        }
+
+        expirations.addAndGet(removed);
+        System.out.println("[RESULT-STORE] Limpeza: " + removed + " expirado(s), " + remaining + " entrada(s) restante(s)");
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("entries", entries.size());
+            stats.put("bytes", currentBytes);
+        }
+        long hitCount = hits.get();
+        long missCount = misses.get();
+
+        stats.put("maxEntries", maxEntries);
+        stats.put("maxBytes", maxBytes);
+        stats.put("ttlMinutes", ttlMinutes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0.0);
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        return stats;
+    }
+
+    // Remove as entradas menos recentemente usadas até respeitar os limites, preservando a recém-inserida
+    private void evictOverflow(String keepProcessId) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || currentBytes > maxBytes) && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(keepProcessId)) {
+                continue;
+            }
+            iterator.remove();
+            currentBytes -= eldest.getValue().sizeBytes;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private Entry removeEntry(String processId) {
+        Entry removed = entries.remove(processId);
+        if (removed != null) {
+            currentBytes -= removed.sizeBytes;
+        }
+        return removed;
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.storedAt > ttlMinutes * 60_000L;
+    }
+
+    private long estimateSize(ProcessingResult result) {
+        long size = BASE_ENTRY_BYTES;
+        if (result.getProcessedImage() != null) {
+            size += result.getProcessedImage().length;
+        }
+        if (result.getMessage() != null) {
+            size += result.getMessage().length();
+        }
+        return size;
+    }
+
+    private static class Entry {
+        final ProcessingResult result;
+        final long storedAt;
+        final long sizeBytes;
+
+        Entry(ProcessingResult result, long storedAt, long sizeBytes) {
+            this.result = result;
+            this.storedAt = storedAt;
+            this.sizeBytes = sizeBytes;
+        }
+    }
+}
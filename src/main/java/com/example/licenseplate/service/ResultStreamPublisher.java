@@ -0,0 +1,200 @@
+package com.example.licenseplate.service;
+
+import com.example.licenseplate.dto.BatchResult;
+import com.example.licenseplate.dto.ProcessingResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Entrega de resultados via Server-Sent Events, substituindo o polling de /status.
+// Assinaturas são registradas por processId ou batchId e recebem o evento assim que o
+// pipeline conclui. Eventos não carregam a imagem: ela fica em /image/{processId}.
+// A escrita na conexão roda no ioExecutor, então um cliente lento não segura a thread
+// do pipeline que publicou o resultado
+@Component
+public class ResultStreamPublisher {
+
+    @Value("${stream.timeout-ms:120000}")
+    private long streamTimeoutMs;
+
+    @Autowired
+    @Qualifier("ioExecutor")
+    private Executor ioExecutor;
+
+    private final Map<String, List<Subscription>> processSubscriptions = new ConcurrentHashMap<>();
+    private final Map<String, List<Subscription>> batchSubscriptions = new ConcurrentHashMap<>();
+
+    private final AtomicLong eventsSent = new AtomicLong();
+
+    // Registra antes de consultar o estado atual: um resultado concluído entre as duas
+    // etapas chega pelo publish, e o que já estava pronto é entregue aqui mesmo
+    public SseEmitter subscribe(String processId, Supplier<ProcessingResult> currentState) {
+        Subscription subscription = register(processSubscriptions, processId);
+
+        ProcessingResult current = currentState.get();
+        if (current != null && isFinal(current)) {
+            deliverAndComplete(subscription, "result", processId, current.withoutImage());
+        }
+        return subscription.emitter;
+    }
+
+    // Envia um snapshot do lote na assinatura; depois, um evento "item" por imagem concluída
+    // e um "batch" final. Itens concluídos durante a assinatura podem aparecer nos dois
+    public SseEmitter subscribeBatch(String batchId, Supplier<BatchResult> currentState) {
+        Subscription subscription = register(batchSubscriptions, batchId);
+
+        BatchResult current = currentState.get();
+        if (current != null) {
+            if (isFinal(current)) {
+                deliverAndComplete(subscription, "batch", batchId, current);
+            } else {
+                send(subscription, "batch", batchId, current);
+            }
+        }
+        return subscription.emitter;
+    }
+
+    public void publish(ProcessingResult result) {
+        List<Subscription> subscriptions = processSubscriptions.remove(result.getProcessId());
+        if (subscriptions == null) {
+            return;
+        }
+
+        ProcessingResult payload = result.withoutImage();
+        for (Subscription subscription : subscriptions) {
+            deliverAndComplete(subscription, "result", result.getProcessId(), payload);
+        }
+    }
+
+    public void publishBatchItem(String batchId, ProcessingResult result) {
+        List<Subscription> subscriptions = batchSubscriptions.get(batchId);
+        if (subscriptions == null) {
+            return;
+        }
+
+        ProcessingResult payload = result.withoutImage();
+        for (Subscription subscription : subscriptions) {
+            send(subscription, "item", result.getProcessId(), payload);
+        }
+    }
+
+    public void publishBatchCompleted(BatchResult batchResult) {
+        List<Subscription> subscriptions = batchSubscriptions.remove(batchResult.getBatchId());
+        if (subscriptions == null) {
+            return;
+        }
+
+        for (Subscription subscription : subscriptions) {
+            deliverAndComplete(subscription, "batch", batchResult.getBatchId(), batchResult);
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("processSubscriptions", countSubscriptions(processSubscriptions));
+        stats.put("batchSubscriptions", countSubscriptions(batchSubscriptions));
+        stats.put("eventsSent", eventsSent.get());
+        stats.put("timeoutMs", streamTimeoutMs);
+        return stats;
+    }
+
+    private Subscription register(Map<String, List<Subscription>> registry, String key) {
+        Subscription subscription = new Subscription(new SseEmitter(streamTimeoutMs));
+        registry.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(subscription);
+
+        Runnable cleanup = () -> {
+            subscription.closed.set(true);
+            registry.computeIfPresent(key, (k, list) -> {
+                list.remove(subscription);
+                return list.isEmpty() ? null : list;
+            });
+        };
+        subscription.emitter.onCompletion(cleanup);
+        subscription.emitter.onTimeout(cleanup);
+        subscription.emitter.onError(error -> cleanup.run());
+        return subscription;
+    }
+
+    private void deliverAndComplete(Subscription subscription, String eventName, String id, Object payload) {
+        if (subscription.delivered.compareAndSet(false, true)) {
+            enqueue(subscription, () -> {
+                if (write(subscription, eventName, id, payload)) {
+                    subscription.closed.set(true);
+                    subscription.emitter.complete();
+                }
+            });
+        }
+    }
+
+    private void send(Subscription subscription, String eventName, String id, Object payload) {
+        enqueue(subscription, () -> write(subscription, eventName, id, payload));
+    }
+
+    // Envios concorrentes no mesmo emitter não são seguros: cada assinatura tem uma cadeia
+    // própria de tarefas, que preserva a ordem dos eventos (itens antes do "batch" final)
+    private void enqueue(Subscription subscription, Runnable task) {
+        synchronized (subscription) {
+            subscription.tail = subscription.tail.handleAsync((ignored, error) -> {
+                task.run();
+                return null;
+            }, ioExecutor);
+        }
+    }
+
+    private boolean write(Subscription subscription, String eventName, String id, Object payload) {
+        if (subscription.closed.get()) {
+            return false;
+        }
+        try {
+            subscription.emitter.send(SseEmitter.event()
+                    .name(eventName)
+                    .id(id)
+                    .data(payload, MediaType.APPLICATION_JSON));
+            eventsSent.incrementAndGet();
+            return true;
+        } catch (Exception e) {
+            // Cliente desconectado: o callback de erro do emitter remove a assinatura
+            System.out.println("[STREAM] Falha ao enviar evento " + eventName + " para " + id + ": " + e.getMessage());
+            subscription.closed.set(true);
+            subscription.emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private static boolean isFinal(ProcessingResult result) {
+        return !"PROCESSING".equals(result.getStatus());
+    }
+
+    private static boolean isFinal(BatchResult result) {
+        return result.getPending() == 0;
+    }
+
+    private static int countSubscriptions(Map<String, List<Subscription>> registry) {
+        return registry.values().stream().mapToInt(List::size).sum();
+    }
+
+    private static class Subscription {
+        final SseEmitter emitter;
+        final AtomicBoolean delivered = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+        Subscription(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
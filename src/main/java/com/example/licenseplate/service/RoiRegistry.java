@@ -0,0 +1,68 @@
+package com.example.licenseplate.service;
+
+import com.example.licenseplate.dto.RegionOfInterest;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Zonas de busca por câmera, lidas de plate.roi.cameras.<cameraId>=<definição> (formato em
+// RegionOfInterest). Câmeras fixas só precisam varrer a faixa por onde os veículos passam
+@Component
+public class RoiRegistry {
+
+    @Autowired
+    private Environment environment;
+
+    private Map<String, RegionOfInterest> cameras = Collections.emptyMap();
+
+    @PostConstruct
+    public void load() {
+        Map<String, String> definitions = Binder.get(environment)
+                .bind("plate.roi.cameras", Bindable.mapOf(String.class, String.class))
+                .orElse(Collections.emptyMap());
+
+        // Definição inválida impede a subida: melhor falhar no deploy do que varrer a zona errada
+        Map<String, RegionOfInterest> parsed = new LinkedHashMap<>();
+        definitions.forEach((cameraId, spec) -> {
+            try {
+                parsed.put(cameraId, RegionOfInterest.parse(spec));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("plate.roi.cameras." + cameraId + ": " + e.getMessage(), e);
+            }
+        });
+        cameras = Collections.unmodifiableMap(parsed);
+
+        System.out.println("[ROI] " + cameras.size() + " câmera(s) com zonas configuradas" +
+                (cameras.isEmpty() ? "" : ": " + cameras.keySet()));
+    }
+
+    // ROI da requisição tem prioridade sobre a da câmera; sem nenhuma das duas a imagem
+    // inteira é varrida (null). Câmera sem zonas configuradas também cai na imagem inteira
+    public RegionOfInterest resolve(String cameraId, String roiSpec) {
+        if (roiSpec != null && !roiSpec.isBlank()) {
+            return RegionOfInterest.parse(roiSpec);
+        }
+        if (cameraId == null || cameraId.isBlank()) {
+            return null;
+        }
+
+        RegionOfInterest roi = cameras.get(cameraId);
+        if (roi == null) {
+            System.out.println("[ROI] Câmera " + cameraId + " sem zonas configuradas, usando imagem inteira");
+        }
+        return roi;
+    }
+
+    public Map<String, String> getCameraDefinitions() {
+        Map<String, String> definitions = new LinkedHashMap<>();
+        cameras.forEach((cameraId, roi) -> definitions.put(cameraId, roi.getSpec()));
+        return definitions;
+    }
+}
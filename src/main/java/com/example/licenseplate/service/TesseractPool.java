@@ -0,0 +1,142 @@
+package com.example.licenseplate.service;
+
+import jakarta.annotation.PostConstruct;
+import net.sourceforge.tess4j.Tesseract;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pool limitado de instâncias Tesseract: cada instância é usada por uma única thread
+// por vez (borrow/release), sem compartilhar estado nativo entre os workers
+@Component
+public class TesseractPool {
+
+    @Value("${tesseract.data.path:C:\\Program Files\\Tesseract-OCR\\tessdata}")
+    private String tessDataPath;
+
+    @Value("${tesseract.language:por}")
+    private String tessLanguage;
+
+    @Value("${tesseract.page-seg-mode:8}")
+    private int pageSegMode;
+
+    @Value("${tesseract.ocr-engine-mode:1}")
+    private int ocrEngineMode;
+
+    @Value("${ocr.char.whitelist:ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789}")
+    private String charWhitelist;
+
+    // Por padrão acompanha image.processing.max-threads (mesmo tamanho da etapa de OCR)
+    @Value("${tesseract.pool.size:${image.processing.max-threads:5}}")
+    private int poolSize;
+
+    @Value("${tesseract.pool.acquire-timeout-ms:10000}")
+    private long acquireTimeoutMs;
+
+    private BlockingQueue<Tesseract> available;
+
+    // Métricas do pool
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        int size = Math.max(1, poolSize);
+        available = new ArrayBlockingQueue<>(size);
+
+        for (int i = 0; i < size; i++) {
+            Tesseract instance = createInstance();
+            if (instance != null) {
+                available.offer(instance);
+                created.incrementAndGet();
+            }
+        }
+
+        System.out.println("[OCR-POOL] Pool inicializado com " + created.get() + "/" + size +
+                " instâncias (datapath: " + tessDataPath + ", timeout: " + acquireTimeoutMs + "ms)");
+    }
+
+    private Tesseract createInstance() {
+        try {
+            Tesseract tesseract = new Tesseract();
+            tesseract.setDatapath(tessDataPath);
+            tesseract.setLanguage(tessLanguage);
+            tesseract.setPageSegMode(pageSegMode); // 8 = trata a imagem como uma única palavra
+            tesseract.setOcrEngineMode(ocrEngineMode); // 1 = LSTM OCR Engine
+
+            // Configuração específica para placas - apenas letras e números
+            tesseract.setVariable("tessedit_char_whitelist", charWhitelist);
+            return tesseract;
+        } catch (Exception e) {
+            System.err.println("[OCR-POOL] Erro ao criar instância Tesseract: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Obtém uma instância exclusiva aguardando no máximo o timeout configurado.
+    // Retorna null se o pool estiver esgotado; toda instância obtida deve voltar via release()
+    public Tesseract borrow() throws InterruptedException {
+        return borrow(acquireTimeoutMs);
+    }
+
+    public Tesseract borrow(long timeoutMs) throws InterruptedException {
+        if (created.get() == 0) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        Tesseract tesseract = available.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        long waited = System.nanoTime() - start;
+
+        if (tesseract == null) {
+            timeoutCount.incrementAndGet();
+            System.err.println("[OCR-POOL] Timeout aguardando instância Tesseract (" + timeoutMs + "ms)");
+            return null;
+        }
+
+        borrowCount.incrementAndGet();
+        inUse.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        return tesseract;
+    }
+
+    public void release(Tesseract tesseract) {
+        if (tesseract == null) return;
+
+        inUse.decrementAndGet();
+        if (!available.offer(tesseract)) {
+            System.err.println("[OCR-POOL] Instância devolvida com pool cheio, descartando");
+        }
+    }
+
+    public int getPoolSize() {
+        return created.get();
+    }
+
+    public Map<String, Object> getMetrics() {
+        long borrows = borrowCount.get();
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("poolSize", created.get());
+        metrics.put("available", available != null ? available.size() : 0);
+        metrics.put("inUse", inUse.get());
+        metrics.put("borrowCount", borrows);
+        metrics.put("timeoutCount", timeoutCount.get());
+        metrics.put("avgWaitMs", borrows > 0 ? totalWaitNanos.get() / borrows / 1_000_000.0 : 0.0);
+        metrics.put("maxWaitMs", maxWaitNanos.get() / 1_000_000.0);
+        metrics.put("acquireTimeoutMs", acquireTimeoutMs);
+        return metrics;
+    }
+}